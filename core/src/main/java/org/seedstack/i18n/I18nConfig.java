@@ -19,6 +19,7 @@ public class I18nConfig {
     private boolean allowMissingTranslations = true;
     private List<String> additionalLocales = new ArrayList<>();
     private CacheConfig cache = new CacheConfig();
+    private ChangeLogConfig changeLog = new ChangeLogConfig();
 
     /**
      * The translationFallback flag is false by default. When true it enables a fallback to the default
@@ -66,17 +67,38 @@ public class I18nConfig {
         return cache;
     }
 
+    public ChangeLogConfig changeLogConfig() {
+        return changeLog;
+    }
+
     @Config("cache")
     public static class CacheConfig {
         private static final int DEFAULT_CACHE_MAX_SIZE = 8192;
         private static final int DEFAULT_CACHE_CONCURRENCY = 32;
+        private static final int DEFAULT_MESSAGE_FORMAT_CACHE_MAX_SIZE = 4096;
+        private static final int DEFAULT_FORMATTER_CACHE_MAX_SIZE = 1024;
+        private static final int DEFAULT_MISSING_KEY_CACHE_MAX_SIZE = 4096;
+        private static final int DEFAULT_HISTORY_SIZE = 10000;
+        private static final int DEFAULT_WARM_UP_THREADS = 4;
+        private static final int DEFAULT_REFRESH_THREADS = 2;
         private int maxSize = DEFAULT_CACHE_MAX_SIZE;
+        private long maxWeightBytes;
         private int initialSize;
         private int concurrencyLevel;
+        private int messageFormatMaxSize = DEFAULT_MESSAGE_FORMAT_CACHE_MAX_SIZE;
+        private int formatterMaxSize = DEFAULT_FORMATTER_CACHE_MAX_SIZE;
+        private int missingKeyMaxSize = DEFAULT_MISSING_KEY_CACHE_MAX_SIZE;
+        private int historySize = DEFAULT_HISTORY_SIZE;
+        private boolean warmUp;
+        private int warmUpThreads;
+        private long refreshAfterWrite;
+        private long expireAfterWrite;
+        private int refreshThreads = DEFAULT_REFRESH_THREADS;
 
         public CacheConfig() {
             this.initialSize = this.maxSize / 4;
             this.concurrencyLevel = DEFAULT_CACHE_CONCURRENCY;
+            this.warmUpThreads = Math.min(DEFAULT_WARM_UP_THREADS, Runtime.getRuntime().availableProcessors());
         }
 
         public int getInitialSize() {
@@ -90,5 +112,191 @@ public class I18nConfig {
         public int getConcurrencyLevel() {
             return this.concurrencyLevel;
         }
+
+        /**
+         * The estimated heap, in bytes, that the messages of all the cached locales may retain. When it is
+         * exceeded, the messages of the least recently used locales are evicted. The size of the messages of
+         * a locale is estimated when they are loaded, and estimated again once key changes altered it by more
+         * than an eighth. Defaults to zero, which bounds the cache by its {@link #getMaxSize() number of
+         * locales}. When set, the number of locales is not bounded anymore and the cache is not split by
+         * {@link #getConcurrencyLevel() concurrency level}, so that each locale can use the whole weight.
+         *
+         * @return the maximum weight of the message cache
+         */
+        public long getMaxWeightBytes() {
+            return this.maxWeightBytes;
+        }
+
+        /**
+         * The maximum number of compiled message formats kept in memory. Each entry corresponds to a
+         * translation formatted with arguments in a given locale.
+         *
+         * @return the maximum size of the message format cache
+         */
+        public int getMessageFormatMaxSize() {
+            return this.messageFormatMaxSize;
+        }
+
+        /**
+         * The maximum number of date, number and currency formatters kept in memory. Each entry corresponds
+         * to a combination of locale, skeleton, timezone and currency.
+         *
+         * @return the maximum size of the formatter cache
+         */
+        public int getFormatterMaxSize() {
+            return this.formatterMaxSize;
+        }
+
+        /**
+         * The maximum number of unknown keys remembered as missing. Lookups of these keys are answered
+         * with their placeholder until a key with the same name is created.
+         *
+         * @return the maximum size of the missing key cache
+         */
+        public int getMissingKeyMaxSize() {
+            return this.missingKeyMaxSize;
+        }
+
+        /**
+         * The number of key changes remembered to send message deltas. Clients which missed more changes
+         * than that get the whole messages again.
+         *
+         * @return the maximum number of remembered key changes
+         */
+        public int getHistorySize() {
+            return this.historySize;
+        }
+
+        /**
+         * Indicates whether the messages of every available locale are loaded in the cache at startup,
+         * instead of on first use.
+         *
+         * @return true if the cache is warmed up at startup
+         */
+        public boolean isWarmUp() {
+            return this.warmUp;
+        }
+
+        /**
+         * The number of locales loaded in parallel when warming up the cache.
+         *
+         * @return the number of warm-up threads
+         */
+        public int getWarmUpThreads() {
+            return this.warmUpThreads;
+        }
+
+        /**
+         * The time in milliseconds after which the messages of a locale are reloaded in the background on
+         * their next use. Until the reload completes, readers get the previous messages. In this mode,
+         * bulk invalidations also reload the messages in the background. Zero disables the refresh.
+         *
+         * @return the refresh delay
+         */
+        public long getRefreshAfterWrite() {
+            return this.refreshAfterWrite;
+        }
+
+        /**
+         * The time in milliseconds after which the messages of a locale are dropped from the cache, which
+         * bounds their staleness when refreshed in the background. Zero disables the expiry.
+         *
+         * @return the expiry delay
+         */
+        public long getExpireAfterWrite() {
+            return this.expireAfterWrite;
+        }
+
+        /**
+         * The number of threads reloading the messages in the background.
+         *
+         * @return the number of refresh threads
+         */
+        public int getRefreshThreads() {
+            return this.refreshThreads;
+        }
+
+        /**
+         * Indicates whether the messages are refreshed in the background.
+         *
+         * @return true if a refresh delay is configured
+         */
+        public boolean isRefreshEnabled() {
+            return this.refreshAfterWrite > 0;
+        }
+    }
+
+    @Config("changeLog")
+    public static class ChangeLogConfig {
+        private static final long DEFAULT_POLL_INTERVAL = 5000;
+        private static final long DEFAULT_GAP_TIMEOUT = 60000;
+        private static final long DEFAULT_RETENTION = 24 * 60 * 60 * 1000;
+        private boolean enabled = false;
+        private long pollInterval = DEFAULT_POLL_INTERVAL;
+        private long gapTimeout = DEFAULT_GAP_TIMEOUT;
+        private long retention = DEFAULT_RETENTION;
+
+        /**
+         * The change log is disabled by default. When enabled, each write of keys or locales is recorded in
+         * the SEED_I18N_CHANGE_LOG table, which is polled by all the nodes sharing the database to update
+         * their caches. The table is neither read nor written while the change log is disabled, so it only
+         * has to be created before enabling it.
+         *
+         * @return true if the change log is enabled, false otherwise
+         */
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public ChangeLogConfig setEnabled(boolean enabled) {
+            this.enabled = enabled;
+            return this;
+        }
+
+        /**
+         * The delay in milliseconds between two polls of the change log.
+         *
+         * @return the poll interval
+         */
+        public long getPollInterval() {
+            return pollInterval;
+        }
+
+        public ChangeLogConfig setPollInterval(long pollInterval) {
+            this.pollInterval = pollInterval;
+            return this;
+        }
+
+        /**
+         * The time in milliseconds during which polls wait for a missing change. Changes are numbered when
+         * written but only visible once committed, so a change may appear after changes numbered later, or
+         * never if its transaction is rolled back. This delay must exceed the duration of the longest write
+         * transaction. It is measured on the polling node only, the clocks of the nodes need not be in sync.
+         *
+         * @return the time to wait for a missing change
+         */
+        public long getGapTimeout() {
+            return gapTimeout;
+        }
+
+        public ChangeLogConfig setGapTimeout(long gapTimeout) {
+            this.gapTimeout = gapTimeout;
+            return this;
+        }
+
+        /**
+         * The time in milliseconds after which changes are deleted from the change log. It is compared to
+         * the clock of the writing node, so it must be much longer than the poll interval.
+         *
+         * @return the retention of changes
+         */
+        public long getRetention() {
+            return retention;
+        }
+
+        public ChangeLogConfig setRetention(long retention) {
+            this.retention = retention;
+            return this;
+        }
     }
 }
@@ -7,7 +7,9 @@
  */
 package org.seedstack.i18n.internal.domain.model.key;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import org.seedstack.business.domain.Repository;
 
 /**
@@ -23,6 +25,24 @@ public interface KeyRepository extends Repository<Key, String> {
      */
     List<Key> loadAll();
 
+    /**
+     * Gets the given keys with their translations, in as few queries as possible. Unknown keys are ignored.
+     *
+     * @param keyIds the names of the keys to load
+     * @return the existing keys
+     */
+    List<Key> loadAll(Collection<String> keyIds);
+
+    /**
+     * Gets the translations of all keys in the given locales. Only the translation values are read,
+     * keys are not loaded as entities. Keys without translation in these locales are associated to an
+     * empty map.
+     *
+     * @param locales the locales of the translations to read
+     * @return the translations indexed by key and then by locale
+     */
+    Map<String, Map<String, String>> loadTranslations(Collection<String> locales);
+
     /**
      * Deletes all the given keys. It reduces IO calls. Should be used for massive delete.
      *
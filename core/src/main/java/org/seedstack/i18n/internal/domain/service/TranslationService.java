@@ -9,6 +9,7 @@ package org.seedstack.i18n.internal.domain.service;
 
 import org.seedstack.business.Service;
 
+import java.util.Collection;
 import java.util.Map;
 import java.util.Optional;
 
@@ -31,13 +32,33 @@ public interface TranslationService {
     Optional<String> getTranslationWithFallback(String locale, String key);
 
     /**
-     * Returns all the keys and their translations for the specified locale.
+     * Get the translations of several keys in the given locale or its closest parent locale.
+     * All the translations are read from the same version of the translations.
+     *
+     * @param locale the locale
+     * @param keys   the keys to translate
+     * @return a map of the translated keys and their translations, keys without translation are absent
+     */
+    Map<String, String> getTranslationsWithFallback(String locale, Collection<String> keys);
+
+    /**
+     * Returns all the keys and their translations for the specified locale. They are served from the
+     * per-locale cache.
      *
      * @param locale The locale identifier.
-     * @return a map of all the keys and their translations or an empty map
+     * @return an unmodifiable map of all the keys and their translations or an empty map
      */
     Map<String, String> getTranslationsForLocale(String locale);
 
+    /**
+     * Loads all the keys and their translations for the specified locale from the repository, without
+     * using the per-locale cache.
+     *
+     * @param locale The locale identifier.
+     * @return a map of all the keys and their translations or an empty map
+     */
+    Map<String, String> loadTranslationsForLocale(String locale);
+
     /**
      * Translates a key for a given locale.
      * <p>
@@ -0,0 +1,303 @@
+/*
+ * Copyright © 2013-2020, The SeedStack authors <http://seedstack.org>
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.seedstack.i18n.internal.infrastructure.jpa;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.function.Consumer;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceException;
+import org.seedstack.i18n.internal.domain.model.key.Key;
+import org.seedstack.i18n.internal.infrastructure.jpa.ChangeLogEntry.ChangeType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Applies the changes made by the repositories to the in-memory caches once the transaction of the
+ * {@code seed-i18n-domain} unit is committed.
+ * <p>
+ * Applying the changes before the commit would let a concurrent reader cache the database state which is
+ * about to change, and would update the caches for nothing when the transaction is rolled back. Changes
+ * are therefore accumulated per transaction, coalesced by key, and applied as a single cache update after
+ * a successful commit. Until then, the thread running the transaction sees its own changes through the
+ * snapshot caches. This relies on Hibernate transaction completion events: with another provider, or
+ * outside of a transaction, changes are applied immediately.
+ * </p>
+ * <p>
+ * When the change log is enabled, each change is also recorded once per transaction in the change log, for
+ * the other nodes sharing the database.
+ * </p>
+ */
+@Singleton
+public class CacheSynchronizer {
+    private static final Logger LOGGER = LoggerFactory.getLogger(CacheSynchronizer.class);
+    private static final boolean HIBERNATE_AVAILABLE = isHibernateAvailable();
+    private static final ThreadLocal<PendingChanges> CURRENT_CHANGES = new ThreadLocal<>();
+    private final Map<Object, PendingChanges> pendingChangesBySession = new WeakHashMap<>();
+    @Inject
+    private TranslationSnapshotCache translationSnapshotCache;
+    @Inject
+    private LocaleSnapshotCache localeSnapshotCache;
+    @Inject
+    private I18nCacheUpdater i18nCacheUpdater;
+    @Inject
+    private ChangeLog changeLog;
+
+    public CacheSynchronizer() {
+    }
+
+    /**
+     * Non injected constructor used for testing.
+     *
+     * @param translationSnapshotCache the translation snapshot
+     * @param localeSnapshotCache      the locale snapshot
+     * @param i18nCacheUpdater         the translation bundles
+     * @param changeLog                the change log
+     */
+    public CacheSynchronizer(TranslationSnapshotCache translationSnapshotCache,
+            LocaleSnapshotCache localeSnapshotCache, I18nCacheUpdater i18nCacheUpdater, ChangeLog changeLog) {
+        this.translationSnapshotCache = translationSnapshotCache;
+        this.localeSnapshotCache = localeSnapshotCache;
+        this.i18nCacheUpdater = i18nCacheUpdater;
+        this.changeLog = changeLog;
+    }
+
+    private static boolean isHibernateAvailable() {
+        try {
+            Class.forName("org.hibernate.Session", false, CacheSynchronizer.class.getClassLoader());
+            return true;
+        } catch (ClassNotFoundException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Returns the changes not committed yet by the transaction of the current thread.
+     *
+     * @return the pending changes or null if the current thread has no pending change
+     */
+    static PendingChanges currentChanges() {
+        PendingChanges pendingChanges = CURRENT_CHANGES.get();
+        return pendingChanges != null && !pendingChanges.isEmpty() ? pendingChanges : null;
+    }
+
+    void keyUpdated(EntityManager entityManager, Key key) {
+        record(entityManager, ChangeType.KEY, key.getId(), pendingChanges -> pendingChanges.keyUpdated(key));
+    }
+
+    void keyRemoved(EntityManager entityManager, String keyId) {
+        record(entityManager, ChangeType.KEY, keyId, pendingChanges -> pendingChanges.keyRemoved(keyId));
+    }
+
+    void keysCleared(EntityManager entityManager) {
+        record(entityManager, ChangeType.KEYS_CLEARED, null, PendingChanges::keysCleared);
+    }
+
+    void localesChanged(EntityManager entityManager) {
+        record(entityManager, ChangeType.LOCALE, null, PendingChanges::localesChanged);
+    }
+
+    private void record(EntityManager entityManager, ChangeType changeType, String keyId,
+            Consumer<PendingChanges> change) {
+        PendingChanges pendingChanges = getPendingChanges(entityManager);
+        if (pendingChanges == null || pendingChanges.markLogged(changeType, keyId)) {
+            changeLog.record(entityManager, changeType, keyId);
+        }
+        if (pendingChanges != null) {
+            change.accept(pendingChanges);
+        } else {
+            PendingChanges immediateChanges = new PendingChanges();
+            change.accept(immediateChanges);
+            apply(immediateChanges);
+        }
+    }
+
+    private PendingChanges getPendingChanges(EntityManager entityManager) {
+        if (!HIBERNATE_AVAILABLE || !entityManager.isJoinedToTransaction()) {
+            return null;
+        }
+        Object session;
+        try {
+            session = entityManager.getDelegate();
+        } catch (PersistenceException e) {
+            LOGGER.debug("Unable to access the persistence session, the i18n caches will be updated immediately", e);
+            return null;
+        }
+        PendingChanges pendingChanges;
+        synchronized (pendingChangesBySession) {
+            pendingChanges = pendingChangesBySession.get(session);
+            if (pendingChanges == null) {
+                PendingChanges sessionChanges = new PendingChanges();
+                if (!HibernateCompletionListener.register(session,
+                        successful -> transactionCompleted(sessionChanges, successful))) {
+                    return null;
+                }
+                pendingChangesBySession.put(session, sessionChanges);
+                pendingChanges = sessionChanges;
+            }
+        }
+        CURRENT_CHANGES.set(pendingChanges);
+        return pendingChanges;
+    }
+
+    private void transactionCompleted(PendingChanges pendingChanges, boolean successful) {
+        if (CURRENT_CHANGES.get() == pendingChanges) {
+            CURRENT_CHANGES.remove();
+        }
+        // Changes are discarded on rollback, the caches still reflect the database
+        PendingChanges completedChanges = pendingChanges.drain();
+        if (successful) {
+            apply(completedChanges);
+        }
+    }
+
+    void apply(PendingChanges changes) {
+        if (changes.isKeysCleared()) {
+            translationSnapshotCache.invalidate();
+            i18nCacheUpdater.invalidateAll();
+        } else {
+            if (!changes.getRemovedKeys().isEmpty() || !changes.getUpdatedKeys().isEmpty()) {
+                translationSnapshotCache.keysChanged(changes.getUpdatedKeys(), changes.getRemovedKeys());
+            }
+            if (!changes.getRemovedKeys().isEmpty()) {
+                i18nCacheUpdater.keysRemoved(changes.getRemovedKeys());
+            }
+            if (!changes.getUpdatedKeyIds().isEmpty()) {
+                i18nCacheUpdater.keysUpdated(changes.getUpdatedKeyIds());
+            }
+        }
+        if (changes.isLocalesChanged()) {
+            localeSnapshotCache.invalidate();
+            // Fallback chains, and so the content of every bundle, depend on the locales
+            i18nCacheUpdater.invalidateAll();
+        }
+    }
+
+    /**
+     * Changes of one transaction, coalesced by key: only the last write of each key is kept.
+     */
+    static class PendingChanges {
+        private final Map<String, Key> updatedKeys = new LinkedHashMap<>();
+        private final Set<String> removedKeys = new LinkedHashSet<>();
+        private final Set<String> loggedChanges = new HashSet<>();
+        private boolean keysCleared;
+        private boolean localesChanged;
+        private int version;
+        private int overlayVersion;
+        private TranslationSnapshot overlayBase;
+        private TranslationSnapshot overlay;
+
+        synchronized void keyUpdated(Key key) {
+            removedKeys.remove(key.getId());
+            updatedKeys.put(key.getId(), key);
+            version++;
+        }
+
+        synchronized void keyRemoved(String keyId) {
+            updatedKeys.remove(keyId);
+            removedKeys.add(keyId);
+            version++;
+        }
+
+        synchronized void keysCleared() {
+            updatedKeys.clear();
+            removedKeys.clear();
+            keysCleared = true;
+            version++;
+        }
+
+        synchronized void localesChanged() {
+            localesChanged = true;
+        }
+
+        /**
+         * Marks the given change as recorded in the change log.
+         *
+         * @param changeType the type of change
+         * @param keyId      the written key or null
+         * @return true if the change was not recorded yet by the transaction
+         */
+        synchronized boolean markLogged(ChangeType changeType, String keyId) {
+            return loggedChanges.add(keyId == null ? changeType.name() : changeType.name() + ':' + keyId);
+        }
+
+        /**
+         * Returns the given snapshot as seen by the transaction, i.e. with the pending key changes.
+         *
+         * @param snapshot the committed snapshot
+         * @return the snapshot including the pending changes
+         */
+        synchronized TranslationSnapshot applyTo(TranslationSnapshot snapshot) {
+            if (updatedKeys.isEmpty() && removedKeys.isEmpty() && !keysCleared) {
+                return snapshot;
+            }
+            // Entities may also have been modified since the last write, but only writes are visible
+            if (overlay == null || overlayBase != snapshot || overlayVersion != version) {
+                TranslationSnapshot base = keysCleared ? TranslationSnapshot.of(Collections.emptyList()) : snapshot;
+                overlay = base.patched(updatedKeys.values(), removedKeys);
+                overlayBase = snapshot;
+                overlayVersion = version;
+            }
+            return overlay;
+        }
+
+        /**
+         * Returns the accumulated changes and starts a new accumulation, as the session may be used by
+         * several transactions.
+         *
+         * @return the changes of the completed transaction
+         */
+        synchronized PendingChanges drain() {
+            PendingChanges drained = new PendingChanges();
+            drained.updatedKeys.putAll(updatedKeys);
+            drained.removedKeys.addAll(removedKeys);
+            drained.keysCleared = keysCleared;
+            drained.localesChanged = localesChanged;
+            updatedKeys.clear();
+            removedKeys.clear();
+            keysCleared = false;
+            localesChanged = false;
+            loggedChanges.clear();
+            overlay = null;
+            overlayBase = null;
+            return drained;
+        }
+
+        synchronized boolean isEmpty() {
+            return updatedKeys.isEmpty() && removedKeys.isEmpty() && !keysCleared && !localesChanged;
+        }
+
+        Set<String> getUpdatedKeyIds() {
+            return Collections.unmodifiableSet(updatedKeys.keySet());
+        }
+
+        Collection<Key> getUpdatedKeys() {
+            return Collections.unmodifiableCollection(updatedKeys.values());
+        }
+
+        Set<String> getRemovedKeys() {
+            return Collections.unmodifiableSet(removedKeys);
+        }
+
+        synchronized boolean isKeysCleared() {
+            return keysCleared;
+        }
+
+        synchronized boolean isLocalesChanged() {
+            return localesChanged;
+        }
+    }
+}
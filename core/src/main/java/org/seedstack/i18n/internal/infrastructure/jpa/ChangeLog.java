@@ -0,0 +1,56 @@
+/*
+ * Copyright © 2013-2020, The SeedStack authors <http://seedstack.org>
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.seedstack.i18n.internal.infrastructure.jpa;
+
+import java.util.UUID;
+import javax.inject.Singleton;
+import javax.persistence.EntityManager;
+import org.seedstack.i18n.I18nConfig;
+import org.seedstack.seed.Configuration;
+
+/**
+ * Records the writes of keys and locales in the change log, within the writing transaction, so the change
+ * becomes visible to the other nodes exactly when the data does.
+ */
+@Singleton
+public class ChangeLog {
+    private final String nodeId = UUID.randomUUID().toString();
+    @Configuration
+    private I18nConfig i18nConfig = new I18nConfig();
+
+    public ChangeLog() {
+    }
+
+    /**
+     * Non injected constructor used for testing.
+     *
+     * @param i18nConfig the i18n configuration
+     */
+    public ChangeLog(I18nConfig i18nConfig) {
+        this.i18nConfig = i18nConfig;
+    }
+
+    /**
+     * Returns the identifier of this node, used to ignore its own changes when polling the change log.
+     *
+     * @return the node identifier
+     */
+    String getNodeId() {
+        return nodeId;
+    }
+
+    boolean isEnabled() {
+        return i18nConfig.changeLogConfig().isEnabled();
+    }
+
+    void record(EntityManager entityManager, ChangeLogEntry.ChangeType changeType, String keyId) {
+        if (isEnabled() && entityManager.isJoinedToTransaction()) {
+            entityManager.persist(new ChangeLogEntry(changeType, keyId, nodeId, System.currentTimeMillis()));
+        }
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright © 2013-2020, The SeedStack authors <http://seedstack.org>
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.seedstack.i18n.internal.infrastructure.jpa;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.EnumType;
+import javax.persistence.Enumerated;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.Table;
+
+/**
+ * A write of keys or locales recorded by a node, so that the other nodes sharing the database can update
+ * their caches. Entries are numbered by the database in increasing order, so that polls do not depend on
+ * the clocks of the nodes.
+ */
+@Entity
+@Table(name = "SEED_I18N_CHANGE_LOG", indexes = @Index(name = "IDX_SEED_I18N_CHANGE_LOG_DATE",
+        columnList = "CHANGED_AT"))
+public class ChangeLogEntry {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "ID")
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "CHANGE_TYPE", length = 16, nullable = false)
+    private ChangeType changeType;
+
+    @Column(name = "KEY_ID")
+    private String keyId;
+
+    @Column(name = "NODE_ID", length = 36, nullable = false)
+    private String nodeId;
+
+    @Column(name = "CHANGED_AT", nullable = false)
+    private long changedAt;
+
+    protected ChangeLogEntry() {
+    }
+
+    ChangeLogEntry(ChangeType changeType, String keyId, String nodeId, long changedAt) {
+        this.changeType = changeType;
+        this.keyId = keyId;
+        this.nodeId = nodeId;
+        this.changedAt = changedAt;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public ChangeType getChangeType() {
+        return changeType;
+    }
+
+    /**
+     * Returns the written key.
+     *
+     * @return the key name or null if the change is not about a single key
+     */
+    public String getKeyId() {
+        return keyId;
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    /**
+     * Returns the time of the write on the writing node, only used to purge old entries.
+     *
+     * @return the time in milliseconds since the epoch
+     */
+    public long getChangedAt() {
+        return changedAt;
+    }
+
+    public enum ChangeType {
+        /**
+         * A key was added, updated or removed.
+         */
+        KEY,
+        /**
+         * All the keys were removed.
+         */
+        KEYS_CLEARED,
+        /**
+         * A locale was added, updated or removed.
+         */
+        LOCALE
+    }
+}
@@ -0,0 +1,244 @@
+/*
+ * Copyright © 2013-2020, The SeedStack authors <http://seedstack.org>
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.seedstack.i18n.internal.infrastructure.jpa;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import javax.persistence.EntityManager;
+import org.seedstack.i18n.I18nConfig;
+import org.seedstack.i18n.internal.domain.model.key.Key;
+import org.seedstack.i18n.internal.domain.model.key.KeyRepository;
+import org.seedstack.jpa.JpaUnit;
+import org.seedstack.seed.Configuration;
+import org.seedstack.seed.LifecycleListener;
+import org.seedstack.seed.transaction.Transactional;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Polls the change log to apply the writes of the other nodes sharing the database to the in-memory caches.
+ * <p>
+ * Entries are numbered by the database when written but only visible once their transaction commits, so
+ * they may appear out of order. Each poll reads the entries above a watermark, below which every entry has
+ * been seen. An entry missing below the highest one seen is waited for during the configured gap timeout,
+ * measured with the local clock, then given up as it belongs to a rolled back transaction.
+ * </p>
+ */
+@Singleton
+public class ChangeLogPoller implements LifecycleListener {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ChangeLogPoller.class);
+    private static final long MAX_PURGE_INTERVAL = 60 * 60 * 1000;
+    private static final int MAX_MISSING_ENTRIES = 100000;
+    private final Set<Long> seenEntries = new HashSet<>();
+    private final Map<Long, Long> missingEntries = new HashMap<>();
+    @Configuration
+    private I18nConfig i18nConfig = new I18nConfig();
+    @Inject
+    private EntityManager entityManager;
+    @Inject
+    private KeyRepository keyRepository;
+    @Inject
+    private ChangeLog changeLog;
+    @Inject
+    private CacheSynchronizer cacheSynchronizer;
+    private ScheduledExecutorService scheduler;
+    private long watermark = -1;
+    private long lastPurge;
+
+    public ChangeLogPoller() {
+    }
+
+    /**
+     * Non injected constructor used for testing.
+     *
+     * @param i18nConfig        the i18n configuration
+     * @param entityManager     the entity manager of the i18n unit
+     * @param keyRepository     the key repository
+     * @param changeLog         the change log of this node
+     * @param cacheSynchronizer the caches of this node
+     */
+    public ChangeLogPoller(I18nConfig i18nConfig, EntityManager entityManager, KeyRepository keyRepository,
+            ChangeLog changeLog, CacheSynchronizer cacheSynchronizer) {
+        this.i18nConfig = i18nConfig;
+        this.entityManager = entityManager;
+        this.keyRepository = keyRepository;
+        this.changeLog = changeLog;
+        this.cacheSynchronizer = cacheSynchronizer;
+    }
+
+    @Override
+    public void started() {
+        I18nConfig.ChangeLogConfig changeLogConfig = i18nConfig.changeLogConfig();
+        if (changeLogConfig.isEnabled()) {
+            lastPurge = System.currentTimeMillis();
+            // The first poll only sets the watermark, before the caches are loaded
+            pollQuietly();
+            scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "seed-i18n-change-log");
+                thread.setDaemon(true);
+                return thread;
+            });
+            scheduler.scheduleWithFixedDelay(this::pollQuietly, changeLogConfig.getPollInterval(),
+                    changeLogConfig.getPollInterval(), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @Override
+    public void stopping() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+    }
+
+    private void pollQuietly() {
+        try {
+            poll();
+        } catch (RuntimeException e) {
+            LOGGER.warn("Unable to poll the i18n change log, the next poll will retry", e);
+        }
+    }
+
+    /**
+     * Applies the changes of the other nodes recorded since the last poll.
+     */
+    @JpaUnit(Units.I18N)
+    @Transactional
+    public synchronized void poll() {
+        if (watermark < 0) {
+            Long lastEntry = entityManager.createQuery("SELECT MAX(e.id) FROM ChangeLogEntry e", Long.class)
+                    .getSingleResult();
+            startAfter(lastEntry != null ? lastEntry : 0);
+            return;
+        }
+
+        // Entries of this node are read too, to detect the gaps
+        List<ChangeLogEntry> entries = entityManager
+                .createQuery("SELECT e FROM ChangeLogEntry e WHERE e.id > :watermark ORDER BY e.id",
+                        ChangeLogEntry.class)
+                .setParameter("watermark", watermark)
+                .getResultList();
+        List<ChangeLogEntry> otherNodeEntries = new ArrayList<>();
+        long highestEntry = watermark;
+        for (ChangeLogEntry entry : entries) {
+            if (markSeen(entry.getId()) && !changeLog.getNodeId().equals(entry.getNodeId())) {
+                otherNodeEntries.add(entry);
+            }
+            highestEntry = Math.max(highestEntry, entry.getId());
+        }
+        applyChanges(otherNodeEntries);
+        advanceWatermark(highestEntry, System.nanoTime());
+        purge(i18nConfig.changeLogConfig(), System.currentTimeMillis());
+    }
+
+    private void applyChanges(List<ChangeLogEntry> entries) {
+        CacheSynchronizer.PendingChanges changes = new CacheSynchronizer.PendingChanges();
+        List<String> changedKeyIds = new ArrayList<>();
+        for (ChangeLogEntry entry : entries) {
+            switch (entry.getChangeType()) {
+                case KEY:
+                    changedKeyIds.add(entry.getKeyId());
+                    break;
+                case KEYS_CLEARED:
+                    changes.keysCleared();
+                    break;
+                case LOCALE:
+                    changes.localesChanged();
+                    break;
+                default:
+                    throw new IllegalStateException("Unknown change type " + entry.getChangeType());
+            }
+        }
+        if (!changedKeyIds.isEmpty()) {
+            // Changed keys are read in the state committed by the last writer, keys not found were removed
+            Set<String> removedKeyIds = new HashSet<>(changedKeyIds);
+            for (Key key : keyRepository.loadAll(changedKeyIds)) {
+                changes.keyUpdated(key);
+                removedKeyIds.remove(key.getId());
+            }
+            for (String removedKeyId : removedKeyIds) {
+                changes.keyRemoved(removedKeyId);
+            }
+        }
+        if (!changes.isEmpty()) {
+            LOGGER.debug("Applying i18n changes from other nodes");
+            cacheSynchronizer.apply(changes);
+        }
+    }
+
+    void startAfter(long lastEntry) {
+        watermark = lastEntry;
+    }
+
+    long getWatermark() {
+        return watermark;
+    }
+
+    /**
+     * Marks an entry read above the watermark as seen.
+     *
+     * @param id the entry id
+     * @return true if the entry was not seen by a previous poll
+     */
+    boolean markSeen(long id) {
+        if (seenEntries.add(id)) {
+            missingEntries.remove(id);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Moves the watermark up to the highest entry seen, without passing an entry missing for less than the
+     * gap timeout.
+     *
+     * @param highestEntry the highest entry seen
+     * @param now          the current time in nanoseconds
+     */
+    void advanceWatermark(long highestEntry, long now) {
+        long gapTimeout = TimeUnit.MILLISECONDS.toNanos(i18nConfig.changeLogConfig().getGapTimeout());
+        for (long id = watermark + 1; id < highestEntry && missingEntries.size() < MAX_MISSING_ENTRIES; id++) {
+            if (!seenEntries.contains(id)) {
+                missingEntries.putIfAbsent(id, now);
+            }
+        }
+        while (watermark < highestEntry) {
+            long next = watermark + 1;
+            if (seenEntries.remove(next)) {
+                watermark = next;
+            } else {
+                Long missingSince = missingEntries.get(next);
+                if (missingSince == null || now - missingSince < gapTimeout) {
+                    break;
+                }
+                // The transaction of the entry was rolled back, or the database skipped the number
+                missingEntries.remove(next);
+                watermark = next;
+            }
+        }
+    }
+
+    private void purge(I18nConfig.ChangeLogConfig changeLogConfig, long now) {
+        if (now - lastPurge >= Math.min(changeLogConfig.getRetention(), MAX_PURGE_INTERVAL)) {
+            int purged = entityManager.createQuery("DELETE FROM ChangeLogEntry e WHERE e.changedAt < :before")
+                    .setParameter("before", now - changeLogConfig.getRetention())
+                    .executeUpdate();
+            LOGGER.debug("Purged {} entries from the i18n change log", purged);
+            lastPurge = now;
+        }
+    }
+}
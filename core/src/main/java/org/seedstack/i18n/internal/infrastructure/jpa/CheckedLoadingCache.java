@@ -0,0 +1,64 @@
+/*
+ * Copyright © 2013-2020, The SeedStack authors <http://seedstack.org>
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.seedstack.i18n.internal.infrastructure.jpa;
+
+import com.google.common.cache.ForwardingLoadingCache;
+import com.google.common.cache.LoadingCache;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Checks the bundles once they are published by the underlying cache. The {@link I18nCacheUpdater} only patches
+ * the bundles already stored in the cache, so a write applied between the end of a load and the publication of its
+ * bundle is lost. Such bundles are dropped and loaded again.
+ * <p>
+ * The versions of the published bundles are registered in the {@link TranslationVersions}.
+ * </p>
+ */
+class CheckedLoadingCache extends ForwardingLoadingCache.SimpleForwardingLoadingCache<String, TranslationBundle> {
+    private final I18nCacheLoader cacheLoader;
+    private final TranslationVersions translationVersions;
+
+    CheckedLoadingCache(LoadingCache<String, TranslationBundle> delegate, I18nCacheLoader cacheLoader,
+            TranslationVersions translationVersions) {
+        super(delegate);
+        this.cacheLoader = cacheLoader;
+        this.translationVersions = translationVersions;
+    }
+
+    @Override
+    public TranslationBundle get(String locale) throws ExecutionException {
+        TranslationBundle translationBundle = delegate().get(locale);
+        if (cacheLoader.isStale(locale)) {
+            delegate().asMap().remove(locale, translationBundle);
+            translationBundle = delegate().get(locale);
+        }
+        register(locale, translationBundle);
+        return translationBundle;
+    }
+
+    @Override
+    public TranslationBundle getUnchecked(String locale) {
+        TranslationBundle translationBundle = delegate().getUnchecked(locale);
+        if (cacheLoader.isStale(locale)) {
+            delegate().asMap().remove(locale, translationBundle);
+            translationBundle = delegate().getUnchecked(locale);
+        }
+        register(locale, translationBundle);
+        return translationBundle;
+    }
+
+    private void register(String locale, TranslationBundle translationBundle) {
+        if (!translationVersions.isRegistered(locale, translationBundle)) {
+            translationVersions.register(locale, translationBundle);
+            // The bundle may have left the cache before being registered, after the removal listener ran
+            if (delegate().asMap().get(locale) != translationBundle) {
+                translationVersions.removed(locale, translationBundle);
+            }
+        }
+    }
+}
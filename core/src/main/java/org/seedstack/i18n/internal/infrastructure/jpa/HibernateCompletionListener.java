@@ -0,0 +1,46 @@
+/*
+ * Copyright © 2013-2020, The SeedStack authors <http://seedstack.org>
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.seedstack.i18n.internal.infrastructure.jpa;
+
+import java.util.function.Consumer;
+import org.hibernate.BaseSessionEventListener;
+import org.hibernate.Session;
+
+/**
+ * Notifies the {@link CacheSynchronizer} when the transaction of a session completes. This class is only
+ * loaded when Hibernate is available.
+ */
+class HibernateCompletionListener extends BaseSessionEventListener {
+    private static final long serialVersionUID = 1L;
+    private final transient Consumer<Boolean> onCompletion;
+
+    private HibernateCompletionListener(Consumer<Boolean> onCompletion) {
+        this.onCompletion = onCompletion;
+    }
+
+    /**
+     * Registers a listener on the given session.
+     *
+     * @param session      the persistence session
+     * @param onCompletion the action called with true after a commit and false after a rollback
+     * @return true if the listener was registered, false if the session is not a Hibernate session
+     */
+    static boolean register(Object session, Consumer<Boolean> onCompletion) {
+        if (session instanceof Session) {
+            ((Session) session).addEventListeners(new HibernateCompletionListener(onCompletion));
+            return true;
+        } else {
+            return false;
+        }
+    }
+
+    @Override
+    public void transactionCompletion(boolean successful) {
+        onCompletion.accept(successful);
+    }
+}
@@ -9,29 +9,91 @@ package org.seedstack.i18n.internal.infrastructure.jpa;
 
 import com.google.common.base.Strings;
 import com.google.common.cache.CacheLoader;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
 import org.seedstack.i18n.LocaleService;
 import org.seedstack.i18n.internal.domain.service.TranslationService;
 
 import javax.inject.Inject;
-import java.util.HashMap;
+import java.util.Collections;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 
-public class I18nCacheLoader extends CacheLoader<String, Map<String, String>> {
+public class I18nCacheLoader extends CacheLoader<String, TranslationBundle> {
+    private static final int MAX_LOAD_ATTEMPTS = 3;
     @Inject
     private TranslationService messageService;
     @Inject
     private LocaleService localeService;
+    @Inject
+    private TranslationSnapshotCache translationSnapshotCache;
+    @Inject
+    private TranslationHistory translationHistory;
+    private final ConcurrentMap<String, Long> loadGenerations = new ConcurrentHashMap<>();
+
+    public I18nCacheLoader() {
+    }
+
+    /**
+     * Non injected constructor used for testing.
+     *
+     * @param messageService           the translation service
+     * @param localeService            the locale service
+     * @param translationSnapshotCache the translation snapshot
+     * @param translationHistory       the history of the bundles
+     */
+    public I18nCacheLoader(TranslationService messageService, LocaleService localeService,
+            TranslationSnapshotCache translationSnapshotCache, TranslationHistory translationHistory) {
+        this.messageService = messageService;
+        this.localeService = localeService;
+        this.translationSnapshotCache = translationSnapshotCache;
+        this.translationHistory = translationHistory;
+    }
 
     @Override
-    public Map<String, String> load(String key) {
+    public TranslationBundle load(String key) {
         checkNotNull(key, "key must not be null");
         // If the default locale is not available, then the application is not configured
         if (!Strings.isNullOrEmpty(localeService.getDefaultLocale())) {
-            return messageService.getTranslationsForLocale(key);
+            // Reload if a write was applied to the caches meanwhile, as it couldn't patch a bundle not stored yet
+            Map<String, String> translations;
+            long generation;
+            int attempts = 0;
+            do {
+                generation = translationSnapshotCache.currentGeneration();
+                translations = messageService.loadTranslationsForLocale(key);
+            } while (generation != translationSnapshotCache.currentGeneration() && ++attempts < MAX_LOAD_ATTEMPTS);
+            // A write may still happen before the cache publishes the bundle, which is checked by isStale()
+            loadGenerations.put(key, generation);
+            return new TranslationBundle(translations);
         } else {
-            return new HashMap<>();
+            return new TranslationBundle(Collections.emptyMap());
         }
     }
+
+    @Override
+    public ListenableFuture<TranslationBundle> reload(String key, TranslationBundle oldValue) {
+        TranslationBundle translationBundle = load(key);
+        if (!translationBundle.getVersion().equals(oldValue.getVersion())) {
+            // Clients may have synchronized with the previous bundle, whose missing changes are not in the history
+            translationHistory.reset();
+        }
+        return Futures.immediateFuture(translationBundle);
+    }
+
+    /**
+     * Tells if a write was applied to the caches since the last bundle of the given locale was loaded. Such a
+     * write may have missed the bundle, if it ran before the bundle was published in the cache. Each load is only
+     * checked once.
+     *
+     * @param locale the locale of the bundle
+     * @return true if the bundle must be loaded again
+     */
+    boolean isStale(String locale) {
+        Long generation = loadGenerations.remove(locale);
+        return generation != null && generation != translationSnapshotCache.currentGeneration();
+    }
 }
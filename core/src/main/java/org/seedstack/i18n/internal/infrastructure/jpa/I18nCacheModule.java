@@ -14,22 +14,21 @@ import com.google.inject.Singleton;
 import com.google.inject.TypeLiteral;
 import org.seedstack.seed.Install;
 
-import java.util.Map;
-
 /**
  * @author pierre.thirouin@ext.mpsa.com
  */
 @Install
 public class I18nCacheModule extends PrivateModule {
 
-    private static final TypeLiteral<LoadingCache<String, Map<String, String>>> LOADING_CACHE_TYPE_LITERAL = new TypeLiteral<LoadingCache<String, Map<String, String>>>() {
+    private static final TypeLiteral<LoadingCache<String, TranslationBundle>> LOADING_CACHE_TYPE_LITERAL = new TypeLiteral<LoadingCache<String, TranslationBundle>>() {
     };
-    private static final TypeLiteral<CacheLoader<String, Map<String, String>>> CACHE_LOADER_TYPE_LITERAL = new TypeLiteral<CacheLoader<String, Map<String, String>>>() {
+    private static final TypeLiteral<CacheLoader<String, TranslationBundle>> CACHE_LOADER_TYPE_LITERAL = new TypeLiteral<CacheLoader<String, TranslationBundle>>() {
     };
 
     @Override
     protected void configure() {
-        bind(CACHE_LOADER_TYPE_LITERAL).to(I18nCacheLoader.class).in(Singleton.class);
+        bind(I18nCacheLoader.class).in(Singleton.class);
+        bind(CACHE_LOADER_TYPE_LITERAL).to(I18nCacheLoader.class);
         bind(LOADING_CACHE_TYPE_LITERAL).toProvider(I18nCacheProvider.class).in(Singleton.class);
         expose(LOADING_CACHE_TYPE_LITERAL);
     }
@@ -10,30 +10,82 @@ package org.seedstack.i18n.internal.infrastructure.jpa;
 import com.google.common.cache.CacheBuilder;
 import com.google.common.cache.CacheLoader;
 import com.google.common.cache.LoadingCache;
+import com.google.common.cache.RemovalCause;
+import com.google.common.cache.RemovalNotification;
 import com.google.inject.Provider;
 import com.google.inject.Singleton;
 import org.seedstack.i18n.I18nConfig;
 import org.seedstack.seed.Configuration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import javax.inject.Inject;
-import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 /**
  * @author pierre.thirouin@ext.mpsa.com
  */
-public class I18nCacheProvider implements Provider<LoadingCache<String, Map<String, String>>> {
+public class I18nCacheProvider implements Provider<LoadingCache<String, TranslationBundle>> {
+    private static final Logger LOGGER = LoggerFactory.getLogger(I18nCacheProvider.class);
     @Configuration
     private I18nConfig.CacheConfig cacheConfig = new I18nConfig.CacheConfig();
     @Inject
-    private CacheLoader<String, Map<String, String>> i18nCacheLoader;
+    private I18nCacheLoader i18nCacheLoader;
+    @Inject
+    private I18nCacheRefreshExecutor refreshExecutor;
+    @Inject
+    private TranslationVersions translationVersions;
 
     @Singleton
     @Override
-    public LoadingCache<String, Map<String, String>> get() {
-        return CacheBuilder.newBuilder()
-                .maximumSize(cacheConfig.getMaxSize())
-                .concurrencyLevel(cacheConfig.getConcurrencyLevel())
+    public LoadingCache<String, TranslationBundle> get() {
+        CacheBuilder<String, TranslationBundle> cacheBuilder = CacheBuilder.newBuilder()
                 .initialCapacity(cacheConfig.getInitialSize())
-                .build(i18nCacheLoader);
+                .removalListener(this::onRemoval)
+                .recordStats();
+        if (cacheConfig.getMaxWeightBytes() > 0) {
+            LOGGER.info("The i18n message cache is bounded to {} bytes, its maximum size ({} locales) and its"
+                            + " concurrency level ({}) are not used", cacheConfig.getMaxWeightBytes(),
+                    cacheConfig.getMaxSize(), cacheConfig.getConcurrencyLevel());
+            // The weight limit is split between segments, which must each be able to hold the largest locale.
+            // Writes only happen when a locale is loaded, so a single segment doesn't cause contention.
+            cacheBuilder.maximumWeight(cacheConfig.getMaxWeightBytes())
+                    .weigher(I18nCacheProvider::weigh)
+                    .concurrencyLevel(1);
+        } else {
+            cacheBuilder.maximumSize(cacheConfig.getMaxSize())
+                    .concurrencyLevel(cacheConfig.getConcurrencyLevel());
+        }
+        if (cacheConfig.getExpireAfterWrite() > 0) {
+            cacheBuilder.expireAfterWrite(cacheConfig.getExpireAfterWrite(), TimeUnit.MILLISECONDS);
+        }
+        if (cacheConfig.isRefreshEnabled()) {
+            // Reloads run in the background, readers get the previous bundle meanwhile
+            cacheBuilder.refreshAfterWrite(cacheConfig.getRefreshAfterWrite(), TimeUnit.MILLISECONDS);
+            return new CheckedLoadingCache(cacheBuilder.build(
+                    CacheLoader.asyncReloading(i18nCacheLoader, refreshExecutor)), i18nCacheLoader,
+                    translationVersions);
+        }
+        return new CheckedLoadingCache(cacheBuilder.build(i18nCacheLoader), i18nCacheLoader, translationVersions);
+    }
+
+    private static int weigh(String locale, TranslationBundle translationBundle) {
+        return (int) Math.min(Integer.MAX_VALUE, translationBundle.weigh());
+    }
+
+    private void onRemoval(RemovalNotification<String, TranslationBundle> notification) {
+        TranslationBundle translationBundle = notification.getValue();
+        if (translationBundle != null) {
+            translationVersions.removed(notification.getKey(), translationBundle);
+        }
+        if (notification.getCause() == RemovalCause.SIZE && translationBundle != null) {
+            // Frequent evictions mean that the cache is too small for the locales in use
+            LOGGER.info("Evicted the messages of locale {} from the i18n cache ({} bytes, limit is {})",
+                    notification.getKey(), translationBundle.getRetainedBytes(), cacheConfig.getMaxWeightBytes() > 0
+                            ? cacheConfig.getMaxWeightBytes() + " bytes" : cacheConfig.getMaxSize() + " locales");
+        } else if (notification.getCause() == RemovalCause.EXPIRED && translationBundle != null) {
+            LOGGER.debug("Expired the messages of locale {} from the i18n cache ({} bytes)", notification.getKey(),
+                    translationBundle.getRetainedBytes());
+        }
     }
 }
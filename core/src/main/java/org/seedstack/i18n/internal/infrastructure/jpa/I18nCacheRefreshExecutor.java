@@ -0,0 +1,57 @@
+/*
+ * Copyright © 2013-2020, The SeedStack authors <http://seedstack.org>
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.seedstack.i18n.internal.infrastructure.jpa;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.inject.Singleton;
+import org.seedstack.i18n.I18nConfig;
+import org.seedstack.seed.Configuration;
+import org.seedstack.seed.LifecycleListener;
+
+/**
+ * Runs the background reloads of the message cache when its refresh is enabled. The threads are created on
+ * first use and stopped with the application.
+ */
+@Singleton
+public class I18nCacheRefreshExecutor implements Executor, LifecycleListener {
+    @Configuration
+    private I18nConfig.CacheConfig cacheConfig = new I18nConfig.CacheConfig();
+    private ExecutorService executorService;
+    private boolean stopped;
+
+    @Override
+    public synchronized void execute(Runnable command) {
+        if (stopped) {
+            throw new RejectedExecutionException("The i18n cache refresh is stopped");
+        }
+        if (executorService == null) {
+            AtomicInteger threadCount = new AtomicInteger();
+            executorService = Executors.newFixedThreadPool(Math.max(1, cacheConfig.getRefreshThreads()),
+                    runnable -> {
+                        Thread thread = new Thread(runnable, "seed-i18n-refresh-" + threadCount.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+        }
+        executorService.execute(command);
+    }
+
+    @Override
+    public synchronized void stopping() {
+        stopped = true;
+        if (executorService != null) {
+            // Pending reloads are dropped, readers kept the previous bundles anyway
+            executorService.shutdownNow();
+            executorService = null;
+        }
+    }
+}
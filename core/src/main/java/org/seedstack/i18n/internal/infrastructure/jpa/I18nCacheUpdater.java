@@ -0,0 +1,149 @@
+/*
+ * Copyright © 2013-2020, The SeedStack authors <http://seedstack.org>
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.seedstack.i18n.internal.infrastructure.jpa;
+
+import com.google.common.base.Strings;
+import com.google.common.cache.LoadingCache;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import org.seedstack.i18n.I18nConfig;
+import org.seedstack.i18n.internal.domain.service.TranslationService;
+import org.seedstack.seed.Configuration;
+
+/**
+ * Keeps the per-locale translation bundles of the {@link LoadingCache} up to date when keys are written.
+ * <p>
+ * Instead of dropping every bundle on each write, only the entries of the written keys are recomputed in
+ * each cached bundle, following the same locale fallback rules as the {@link I18nCacheLoader}. The whole
+ * cache is only invalidated by bulk operations.
+ * </p>
+ * <p>
+ * Patches are recorded in the {@link TranslationHistory} once applied, so clients can fetch deltas, and
+ * the new versions of the bundles in the {@link TranslationVersions}.
+ * </p>
+ */
+@Singleton
+public class I18nCacheUpdater {
+    @Configuration
+    private I18nConfig i18nConfig = new I18nConfig();
+    @Inject
+    private LoadingCache<String, TranslationBundle> loadingCache;
+    @Inject
+    private TranslationService translationService;
+    @Inject
+    private LocaleSnapshotCache localeSnapshotCache;
+    @Inject
+    private TranslationHistory translationHistory;
+    @Inject
+    private TranslationVersions translationVersions;
+
+    public I18nCacheUpdater() {
+    }
+
+    /**
+     * Non injected constructor used for testing.
+     *
+     * @param loadingCache        the translation bundles
+     * @param translationService  the translation service
+     * @param localeSnapshotCache the cached locales
+     * @param translationHistory  the history of the bundles
+     * @param translationVersions the versions of the bundles
+     */
+    public I18nCacheUpdater(LoadingCache<String, TranslationBundle> loadingCache,
+            TranslationService translationService, LocaleSnapshotCache localeSnapshotCache,
+            TranslationHistory translationHistory, TranslationVersions translationVersions) {
+        this.loadingCache = loadingCache;
+        this.translationService = translationService;
+        this.localeSnapshotCache = localeSnapshotCache;
+        this.translationHistory = translationHistory;
+        this.translationVersions = translationVersions;
+    }
+
+    /**
+     * Recomputes the translations of the given keys in each cached bundle. The translation snapshot must
+     * already contain the written keys.
+     *
+     * @param keyIds the added or updated keys
+     */
+    void keysUpdated(Collection<String> keyIds) {
+        if (loadingCache.size() == 0 || isNotConfigured()) {
+            // Bundles are empty until a default locale exists
+            translationHistory.keysChanged(keyIds);
+            return;
+        }
+        for (Map.Entry<String, TranslationBundle> bundle : loadingCache.asMap().entrySet()) {
+            Map<String, String> translations = translationService.getTranslationsWithFallback(bundle.getKey(),
+                    keyIds);
+            Map<String, String> updatedTranslations = new HashMap<>();
+            List<String> removedKeyIds = new ArrayList<>();
+            for (String keyId : keyIds) {
+                String translation = translations.get(keyId);
+                if (translation != null) {
+                    updatedTranslations.put(keyId, translation);
+                } else if (!i18nConfig.isAllowMissingTranslations()) {
+                    updatedTranslations.put(keyId, "[" + keyId + "]");
+                } else {
+                    removedKeyIds.add(keyId);
+                }
+            }
+            bundle.getValue().patch(updatedTranslations, removedKeyIds);
+            translationVersions.patched(bundle.getKey(), bundle.getValue());
+            reweigh(bundle.getKey(), bundle.getValue());
+        }
+        translationHistory.keysChanged(keyIds);
+    }
+
+    /**
+     * Removes the given keys from each cached bundle.
+     *
+     * @param keyIds the removed keys
+     */
+    void keysRemoved(Collection<String> keyIds) {
+        for (Map.Entry<String, TranslationBundle> bundle : loadingCache.asMap().entrySet()) {
+            bundle.getValue().patch(Collections.emptyMap(), keyIds);
+            translationVersions.patched(bundle.getKey(), bundle.getValue());
+            reweigh(bundle.getKey(), bundle.getValue());
+        }
+        translationHistory.keysChanged(keyIds);
+    }
+
+    /**
+     * Drops all the cached bundles, or reloads them in the background if the refresh is enabled.
+     */
+    void invalidateAll() {
+        // Bundles being reloaded must not be revalidated, e.g. if their locale was removed
+        translationVersions.clear();
+        if (i18nConfig.cacheConfig().isRefreshEnabled()) {
+            for (String locale : loadingCache.asMap().keySet()) {
+                loadingCache.refresh(locale);
+            }
+        } else {
+            loadingCache.invalidateAll();
+        }
+        translationHistory.reset();
+    }
+
+    private void reweigh(String locale, TranslationBundle bundle) {
+        // The cache weighs bundles when they are stored, not when they are patched in place. Storing them again
+        // also restarts their expiration and refresh delays, so it is only done when the weight drifted.
+        if (i18nConfig.cacheConfig().getMaxWeightBytes() > 0 && bundle.isWeightOutdated()) {
+            loadingCache.asMap().replace(locale, bundle, bundle);
+        }
+    }
+
+    private boolean isNotConfigured() {
+        // Called after commit, read the cached locales rather than opening a new transaction
+        return Strings.isNullOrEmpty(localeSnapshotCache.get().getDefaultLocale());
+    }
+}
@@ -0,0 +1,141 @@
+/*
+ * Copyright © 2013-2020, The SeedStack authors <http://seedstack.org>
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.seedstack.i18n.internal.infrastructure.jpa;
+
+import com.google.common.cache.LoadingCache;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import org.seedstack.i18n.I18nConfig;
+import org.seedstack.i18n.LocaleService;
+import org.seedstack.seed.Configuration;
+import org.seedstack.seed.LifecycleListener;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Loads the messages of every available locale in the cache at startup, when enabled, so the first
+ * requests after a deployment do not pay the loading cost.
+ * <p>
+ * Locales are loaded in the background on a bounded number of threads, startup is not delayed. The
+ * end of the warm-up can be awaited, e.g. by a readiness probe. It is also reached immediately when the
+ * warm-up is disabled, and when it fails, as the messages are then loaded on first use.
+ * </p>
+ */
+@Singleton
+public class I18nCacheWarmer implements LifecycleListener {
+    private static final Logger LOGGER = LoggerFactory.getLogger(I18nCacheWarmer.class);
+    private final CompletableFuture<Void> warmUp = new CompletableFuture<>();
+    @Configuration
+    private I18nConfig.CacheConfig cacheConfig = new I18nConfig.CacheConfig();
+    @Inject
+    private LoadingCache<String, TranslationBundle> loadingCache;
+    @Inject
+    private LocaleService localeService;
+
+    public I18nCacheWarmer() {
+    }
+
+    /**
+     * Non injected constructor used for testing.
+     *
+     * @param cacheConfig   the cache configuration
+     * @param loadingCache  the translation bundles
+     * @param localeService the locale service
+     */
+    public I18nCacheWarmer(I18nConfig.CacheConfig cacheConfig, LoadingCache<String, TranslationBundle> loadingCache,
+            LocaleService localeService) {
+        this.cacheConfig = cacheConfig;
+        this.loadingCache = loadingCache;
+        this.localeService = localeService;
+    }
+
+    @Override
+    public void started() {
+        if (!cacheConfig.isWarmUp()) {
+            warmUp.complete(null);
+            return;
+        }
+        try {
+            warmUp(localeService.getAvailableLocales());
+        } catch (RuntimeException e) {
+            LOGGER.warn("Unable to warm up the i18n cache, messages will be loaded on first use", e);
+            warmUp.complete(null);
+        }
+    }
+
+    private void warmUp(Set<String> locales) {
+        long start = System.nanoTime();
+        AtomicInteger threadCount = new AtomicInteger();
+        ExecutorService executorService = Executors.newFixedThreadPool(Math.max(1, cacheConfig.getWarmUpThreads()),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "seed-i18n-warm-up-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        List<CompletableFuture<Void>> loads = new ArrayList<>(locales.size());
+        for (String locale : locales) {
+            loads.add(CompletableFuture.runAsync(() -> load(locale), executorService));
+        }
+        executorService.shutdown();
+        CompletableFuture.allOf(loads.toArray(new CompletableFuture[0])).whenComplete((result, failure) -> {
+            LOGGER.info("Warmed up the i18n cache with {} locale(s) in {} ms", locales.size(),
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+            warmUp.complete(null);
+        });
+    }
+
+    private void load(String locale) {
+        long start = System.nanoTime();
+        try {
+            int size = loadingCache.getUnchecked(locale).getContent().getTranslations().size();
+            LOGGER.info("Loaded {} message(s) of locale {} in {} ms", size, locale,
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        } catch (RuntimeException e) {
+            LOGGER.warn("Unable to load the messages of locale " + locale + ", they will be loaded on first use", e);
+        }
+    }
+
+    /**
+     * Indicates whether the warm-up is over.
+     *
+     * @return true if the cache is warmed up or if no warm-up is done, false while the warm-up is running
+     */
+    public boolean isWarmedUp() {
+        return warmUp.isDone();
+    }
+
+    /**
+     * Waits for the end of the warm-up.
+     *
+     * @param timeout the maximum time to wait
+     * @param unit    the unit of the timeout
+     * @return true if the warm-up is over, false if the timeout elapsed before
+     * @throws InterruptedException if the current thread is interrupted while waiting
+     */
+    public boolean awaitWarmUp(long timeout, TimeUnit unit) throws InterruptedException {
+        try {
+            warmUp.get(timeout, unit);
+            return true;
+        } catch (TimeoutException e) {
+            return false;
+        } catch (ExecutionException e) {
+            // The warm-up future is never completed exceptionally
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -7,12 +7,16 @@
  */
 package org.seedstack.i18n.internal.infrastructure.jpa;
 
-import com.google.common.cache.LoadingCache;
 import org.seedstack.i18n.internal.domain.model.key.Key;
 import org.seedstack.i18n.internal.domain.model.key.KeyRepository;
 import org.seedstack.jpa.BaseJpaRepository;
 
 import javax.inject.Inject;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 
@@ -22,9 +26,11 @@ import java.util.Map;
  * @author pierre.thirouin@ext.mpsa.com
  */
 public class KeyJpaRepository extends BaseJpaRepository<Key, String> implements KeyRepository {
+    // Some databases, like Oracle, limit the number of values in an IN clause
+    private static final int MAX_IN_VALUES = 500;
 
     @Inject
-    private LoadingCache<String, Map<String, String>> loadingCache;
+    private CacheSynchronizer cacheSynchronizer;
 
     @SuppressWarnings("unchecked")
     @Override
@@ -33,45 +39,101 @@ public class KeyJpaRepository extends BaseJpaRepository<Key, String> implements
                 .getResultList();
     }
 
+    @Override
+    public List<Key> loadAll(Collection<String> keyIds) {
+        List<String> distinctKeyIds = new ArrayList<>(new LinkedHashSet<>(keyIds));
+        List<Key> keys = new ArrayList<>(distinctKeyIds.size());
+        for (int i = 0; i < distinctKeyIds.size(); i += MAX_IN_VALUES) {
+            keys.addAll(getEntityManager()
+                    .createQuery("SELECT DISTINCT k FROM org.seedstack.i18n.internal.domain.model.key.Key k"
+                            + " LEFT JOIN FETCH k.translations WHERE k.entityId IN :keyIds", Key.class)
+                    .setParameter("keyIds", distinctKeyIds.subList(i,
+                            Math.min(i + MAX_IN_VALUES, distinctKeyIds.size())))
+                    .getResultList());
+        }
+        return keys;
+    }
+
+    @Override
+    public Map<String, Map<String, String>> loadTranslations(Collection<String> locales) {
+        Map<String, Map<String, String>> translationsByKey = new HashMap<>();
+        if (locales.isEmpty()) {
+            List<String> keyIds = getEntityManager()
+                    .createQuery("SELECT k.entityId FROM org.seedstack.i18n.internal.domain.model.key.Key k",
+                            String.class)
+                    .getResultList();
+            for (String keyId : keyIds) {
+                translationsByKey.put(keyId, Collections.emptyMap());
+            }
+            return translationsByKey;
+        }
+
+        // Translations are read through the key association to ignore translations detached from their key
+        List<Object[]> rows = getEntityManager()
+                .createQuery("SELECT k.entityId, t.entityId.locale, t.value"
+                        + " FROM org.seedstack.i18n.internal.domain.model.key.Key k"
+                        + " LEFT JOIN k.translations t ON t.entityId.locale IN :locales", Object[].class)
+                .setParameter("locales", locales)
+                .getResultList();
+        for (Object[] row : rows) {
+            String keyId = (String) row[0];
+            String locale = (String) row[1];
+            if (locale == null) {
+                translationsByKey.putIfAbsent(keyId, Collections.emptyMap());
+            } else {
+                Map<String, String> translations = translationsByKey.get(keyId);
+                if (translations == null || translations.isEmpty()) {
+                    translations = new HashMap<>(4);
+                    translationsByKey.put(keyId, translations);
+                }
+                translations.put(locale, (String) row[2]);
+            }
+        }
+        return translationsByKey;
+    }
+
     @Override
     public void delete(List<Key> keys) {
         for (Key key : keys) {
             remove(key);
         }
-        invalidCache();
     }
 
     @Override
     public void clear() {
         super.clear();
-        invalidCache();
+        cacheSynchronizer.keysCleared(getEntityManager());
     }
 
     @Override
     public void remove(String id) {
         super.remove(id);
-        invalidCache();
+        cacheSynchronizer.keyRemoved(getEntityManager(), id);
     }
 
     @Override
     public void remove(Key aggregate) {
         super.remove(aggregate);
-        invalidCache();
+        cacheSynchronizer.keyRemoved(getEntityManager(), aggregate.getId());
     }
 
     @Override
     public void add(Key aggregate) {
         super.add(aggregate);
-        invalidCache();
+        cacheSynchronizer.keyUpdated(getEntityManager(), aggregate);
     }
 
     @Override
     public Key update(Key aggregate) {
-        invalidCache();
-        return super.update(aggregate);
+        Key updatedKey = super.update(aggregate);
+        cacheSynchronizer.keyUpdated(getEntityManager(), updatedKey);
+        return updatedKey;
     }
 
-    private void invalidCache() {
-        loadingCache.invalidateAll();
+    @Override
+    public Key addOrUpdate(Key aggregate) {
+        Key updatedKey = super.addOrUpdate(aggregate);
+        cacheSynchronizer.keyUpdated(getEntityManager(), updatedKey);
+        return updatedKey;
     }
 }
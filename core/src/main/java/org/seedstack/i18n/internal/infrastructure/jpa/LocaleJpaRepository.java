@@ -8,6 +8,7 @@
 package org.seedstack.i18n.internal.infrastructure.jpa;
 
 import java.util.List;
+import javax.inject.Inject;
 import javax.persistence.NoResultException;
 import javax.persistence.criteria.CriteriaBuilder;
 import javax.persistence.criteria.CriteriaQuery;
@@ -20,6 +21,8 @@ import org.seedstack.jpa.BaseJpaRepository;
  * @author pierre.thirouin@ext.mpsa.com
  */
 class LocaleJpaRepository extends BaseJpaRepository<Locale, String> implements LocaleRepository {
+    @Inject
+    private CacheSynchronizer cacheSynchronizer;
 
     @Override
     public List<Locale> loadAll() {
@@ -62,4 +65,42 @@ class LocaleJpaRepository extends BaseJpaRepository<Locale, String> implements L
             update(newDefault);
         }
     }
+
+    @Override
+    public void add(Locale aggregate) {
+        super.add(aggregate);
+        cacheSynchronizer.localesChanged(getEntityManager());
+    }
+
+    @Override
+    public Locale update(Locale aggregate) {
+        Locale updatedLocale = super.update(aggregate);
+        cacheSynchronizer.localesChanged(getEntityManager());
+        return updatedLocale;
+    }
+
+    @Override
+    public Locale addOrUpdate(Locale aggregate) {
+        Locale updatedLocale = super.addOrUpdate(aggregate);
+        cacheSynchronizer.localesChanged(getEntityManager());
+        return updatedLocale;
+    }
+
+    @Override
+    public void remove(String id) {
+        super.remove(id);
+        cacheSynchronizer.localesChanged(getEntityManager());
+    }
+
+    @Override
+    public void remove(Locale aggregate) {
+        super.remove(aggregate);
+        cacheSynchronizer.localesChanged(getEntityManager());
+    }
+
+    @Override
+    public void clear() {
+        super.clear();
+        cacheSynchronizer.localesChanged(getEntityManager());
+    }
 }
@@ -0,0 +1,71 @@
+/*
+ * Copyright © 2013-2020, The SeedStack authors <http://seedstack.org>
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.seedstack.i18n.internal.infrastructure.jpa;
+
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import org.seedstack.i18n.internal.domain.model.locale.Locale;
+
+/**
+ * Immutable in-memory view of the available locales and of the default locale.
+ */
+public final class LocaleSnapshot {
+    private final Set<String> availableLocales;
+    private final String defaultLocale;
+
+    private LocaleSnapshot(Set<String> availableLocales, String defaultLocale) {
+        this.availableLocales = availableLocales;
+        this.defaultLocale = defaultLocale;
+    }
+
+    /**
+     * Builds a snapshot from the given locales.
+     *
+     * @param locales       the available locales
+     * @param defaultLocale the default locale or null if there is no default locale
+     * @return the snapshot
+     */
+    static LocaleSnapshot of(List<Locale> locales, Locale defaultLocale) {
+        Set<String> availableLocales = new LinkedHashSet<>();
+        for (Locale locale : locales) {
+            availableLocales.add(locale.getId());
+        }
+        return new LocaleSnapshot(Collections.unmodifiableSet(availableLocales),
+                defaultLocale != null ? defaultLocale.getId() : null);
+    }
+
+    /**
+     * Indicates whether the locale is available.
+     *
+     * @param locale the locale code
+     * @return true if the locale is available, false otherwise
+     */
+    public boolean isAvailable(String locale) {
+        return locale != null && availableLocales.contains(locale);
+    }
+
+    /**
+     * Returns the available locale codes.
+     *
+     * @return an unmodifiable set of locale codes
+     */
+    public Set<String> getAvailableLocales() {
+        return availableLocales;
+    }
+
+    /**
+     * Returns the default locale code.
+     *
+     * @return the default locale or null if there is no default locale
+     */
+    public String getDefaultLocale() {
+        return defaultLocale;
+    }
+}
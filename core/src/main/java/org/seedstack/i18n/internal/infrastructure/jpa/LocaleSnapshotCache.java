@@ -0,0 +1,92 @@
+/*
+ * Copyright © 2013-2020, The SeedStack authors <http://seedstack.org>
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.seedstack.i18n.internal.infrastructure.jpa;
+
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import org.seedstack.i18n.internal.domain.model.locale.LocaleRepository;
+import org.seedstack.jpa.JpaUnit;
+import org.seedstack.seed.transaction.Transactional;
+
+/**
+ * Holds the current {@link LocaleSnapshot}. The snapshot is loaded lazily from the repository and
+ * invalidated by the {@link CacheSynchronizer} after each committed write. Consumers can compare snapshot instances
+ * to know when the locales have changed.
+ */
+@Singleton
+public class LocaleSnapshotCache {
+    private final Lock loadLock = new ReentrantLock();
+    private volatile LocaleSnapshot snapshot;
+    private long generation;
+    @Inject
+    private LocaleRepository localeRepository;
+
+    public LocaleSnapshotCache() {
+    }
+
+    /**
+     * Non injected constructor used for testing.
+     *
+     * @param localeRepository the locale repository
+     */
+    public LocaleSnapshotCache(LocaleRepository localeRepository) {
+        this.localeRepository = localeRepository;
+    }
+
+    /**
+     * Returns the current snapshot, loading it if necessary.
+     *
+     * @return the snapshot
+     */
+    public LocaleSnapshot get() {
+        CacheSynchronizer.PendingChanges pendingChanges = CacheSynchronizer.currentChanges();
+        if (pendingChanges != null && pendingChanges.isLocalesChanged()) {
+            // The current transaction sees its own writes, read in the transaction and never published
+            return LocaleSnapshot.of(localeRepository.loadAll(), localeRepository.getDefaultLocale());
+        }
+        LocaleSnapshot current = snapshot;
+        if (current != null) {
+            return current;
+        }
+        loadLock.lock();
+        try {
+            current = snapshot;
+            if (current == null) {
+                current = load();
+            }
+            return current;
+        } finally {
+            loadLock.unlock();
+        }
+    }
+
+    @JpaUnit("seed-i18n-domain")
+    @Transactional
+    LocaleSnapshot load() {
+        long loadGeneration = currentGeneration();
+        LocaleSnapshot loaded = LocaleSnapshot.of(localeRepository.loadAll(), localeRepository.getDefaultLocale());
+        synchronized (this) {
+            // Only publish the snapshot if no write happened while loading, otherwise it may be stale
+            if (generation == loadGeneration) {
+                snapshot = loaded;
+            }
+        }
+        return loaded;
+    }
+
+    private synchronized long currentGeneration() {
+        return generation;
+    }
+
+    synchronized void invalidate() {
+        generation++;
+        snapshot = null;
+    }
+}
@@ -0,0 +1,296 @@
+/*
+ * Copyright © 2013-2020, The SeedStack authors <http://seedstack.org>
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.seedstack.i18n.internal.infrastructure.jpa;
+
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * The translations of a locale held by the cache, with a version derived from their content.
+ * <p>
+ * The version is the sum of the hashes of the entries, so it is updated in constant time when the bundle
+ * is patched, and it is the same on each node serving the same translations. The translations are only
+ * held by an immutable {@link Content} given as is to the readers. Patches are copied on write: the changes
+ * of a transaction produce a single new content.
+ * </p>
+ * <p>
+ * The translations of the keys starting with given prefixes can be extracted from a content. Keys are then
+ * sorted once, so each prefix is a range scan, and the extracted translations are kept with the content.
+ * </p>
+ * <p>
+ * The heap retained by the bundle is estimated along with the version, so the cache can be bounded by
+ * memory rather than by number of locales. Key ids and translations are interned, so the bundles of
+ * different locales share identical strings.
+ * </p>
+ */
+public final class TranslationBundle {
+    private static final HashFunction HASH_FUNCTION = Hashing.murmur3_128();
+    private static final int MAX_FILTERED_CONTENTS = 64;
+    private static final long BUNDLE_OVERHEAD_BYTES = 256;
+    // A hash map node and its table slot
+    private static final long ENTRY_OVERHEAD_BYTES = 48;
+    private long digest;
+    private volatile long retainedBytes;
+    private volatile long weighedBytes;
+    private volatile long deduplicatedBytes;
+    private volatile Content content;
+
+    /**
+     * Creates a bundle with the given translations.
+     *
+     * @param translations the translations by key
+     */
+    public TranslationBundle(Map<String, String> translations) {
+        TranslationInterner interner = new TranslationInterner();
+        Map<String, String> internedTranslations = new HashMap<>(translations.size() * 4 / 3 + 1);
+        long bytes = BUNDLE_OVERHEAD_BYTES;
+        for (Map.Entry<String, String> translation : translations.entrySet()) {
+            String keyId = interner.intern(translation.getKey());
+            String value = interner.intern(translation.getValue());
+            internedTranslations.put(keyId, value);
+            digest += hash(keyId, value);
+            bytes += retainedBytes(keyId, value);
+        }
+        this.deduplicatedBytes = interner.getSavedBytes();
+        this.retainedBytes = bytes;
+        this.content = new Content(Long.toHexString(digest), Collections.unmodifiableMap(internedTranslations));
+    }
+
+    private static long digest(Map<String, String> translations) {
+        long digest = 0;
+        for (Map.Entry<String, String> translation : translations.entrySet()) {
+            digest += hash(translation.getKey(), translation.getValue());
+        }
+        return digest;
+    }
+
+    private static long hash(String keyId, String translation) {
+        return HASH_FUNCTION.newHasher()
+                .putUnencodedChars(keyId)
+                .putChar('\0')
+                .putUnencodedChars(translation)
+                .hash()
+                .asLong();
+    }
+
+    private static long retainedBytes(String keyId, String translation) {
+        // Shared strings are counted anyway, as they may only be shared with other bundles
+        return ENTRY_OVERHEAD_BYTES + TranslationInterner.estimateBytes(keyId)
+                + TranslationInterner.estimateBytes(translation);
+    }
+
+    /**
+     * Returns the version of the translations, which changes each time their content changes.
+     *
+     * @return the version
+     */
+    public String getVersion() {
+        return content.getVersion();
+    }
+
+    /**
+     * Returns an estimate of the heap retained by the bundle.
+     *
+     * @return the estimated size in bytes
+     */
+    public long getRetainedBytes() {
+        return retainedBytes;
+    }
+
+    /**
+     * Returns the estimate of the retained heap given to the cache, which weighs its entries only when they
+     * are stored.
+     *
+     * @return the estimated size in bytes
+     */
+    long weigh() {
+        long bytes = retainedBytes;
+        weighedBytes = bytes;
+        return bytes;
+    }
+
+    /**
+     * Indicates whether patches changed the retained heap by more than an eighth since the bundle was weighed,
+     * in which case it must be stored again in the cache.
+     *
+     * @return true if the weight known by the cache is outdated
+     */
+    boolean isWeightOutdated() {
+        long weighed = weighedBytes;
+        return Math.abs(retainedBytes - weighed) > weighed / 8;
+    }
+
+    /**
+     * Returns an estimate of the heap saved by sharing the strings of the bundle with the other caches.
+     *
+     * @return the deduplicated size in bytes
+     */
+    public long getDeduplicatedBytes() {
+        return deduplicatedBytes;
+    }
+
+    /**
+     * Returns the current translations along with their version.
+     *
+     * @return the content of the bundle
+     */
+    public Content getContent() {
+        return content;
+    }
+
+    /**
+     * Applies the changes of a transaction. The translations are copied once if anything changed, readers
+     * keep the previous content meanwhile.
+     *
+     * @param updatedTranslations the new translations by key
+     * @param removedKeyIds       the keys to remove
+     */
+    synchronized void patch(Map<String, String> updatedTranslations, Collection<String> removedKeyIds) {
+        Map<String, String> translations = content.translations;
+        Map<String, String> patchedTranslations = null;
+        TranslationInterner interner = new TranslationInterner();
+        for (Map.Entry<String, String> updatedTranslation : updatedTranslations.entrySet()) {
+            String keyId = updatedTranslation.getKey();
+            String translation = updatedTranslation.getValue();
+            String previous = translations.get(keyId);
+            if (!translation.equals(previous)) {
+                if (patchedTranslations == null) {
+                    patchedTranslations = new HashMap<>(translations);
+                    translations = patchedTranslations;
+                }
+                patchedTranslations.put(interner.intern(keyId), interner.intern(translation));
+                if (previous != null) {
+                    removed(keyId, previous);
+                }
+                digest += hash(keyId, translation);
+                retainedBytes += retainedBytes(keyId, translation);
+            }
+        }
+        for (String keyId : removedKeyIds) {
+            if (translations.containsKey(keyId)) {
+                if (patchedTranslations == null) {
+                    patchedTranslations = new HashMap<>(translations);
+                    translations = patchedTranslations;
+                }
+                removed(keyId, patchedTranslations.remove(keyId));
+            }
+        }
+        if (patchedTranslations != null) {
+            deduplicatedBytes += interner.getSavedBytes();
+            content = new Content(Long.toHexString(digest), Collections.unmodifiableMap(patchedTranslations));
+        }
+    }
+
+    private void removed(String keyId, String translation) {
+        digest -= hash(keyId, translation);
+        retainedBytes -= retainedBytes(keyId, translation);
+    }
+
+    void put(String keyId, String translation) {
+        patch(Collections.singletonMap(keyId, translation), Collections.emptySet());
+    }
+
+    void remove(String keyId) {
+        patch(Collections.emptyMap(), Collections.singleton(keyId));
+    }
+
+    /**
+     * An immutable state of the bundle.
+     */
+    public static final class Content {
+        private final String version;
+        private final Map<String, String> translations;
+        private final ConcurrentMap<String, Content> filteredContents = new ConcurrentHashMap<>();
+        private volatile String[] sortedKeyIds;
+
+        private Content(String version, Map<String, String> translations) {
+            this.version = version;
+            this.translations = translations;
+        }
+
+        public String getVersion() {
+            return version;
+        }
+
+        public Map<String, String> getTranslations() {
+            return translations;
+        }
+
+        /**
+         * Returns the translations of the keys starting with one of the given prefixes, with their own
+         * version.
+         *
+         * @param prefixes the prefixes of the keys
+         * @return the translations of the matching keys
+         */
+        public Content filter(Collection<String> prefixes) {
+            List<String> normalizedPrefixes = normalize(prefixes);
+            if (normalizedPrefixes.contains("")) {
+                return this;
+            }
+            String cacheKey = String.join("\0", normalizedPrefixes);
+            Content filteredContent = filteredContents.get(cacheKey);
+            if (filteredContent == null) {
+                filteredContent = extract(normalizedPrefixes);
+                // Prefixes come from the outside world, so the number of kept extractions is bounded
+                if (filteredContents.size() < MAX_FILTERED_CONTENTS) {
+                    filteredContents.putIfAbsent(cacheKey, filteredContent);
+                }
+            }
+            return filteredContent;
+        }
+
+        private static List<String> normalize(Collection<String> prefixes) {
+            // Sorted, without the prefixes already covered by a shorter one
+            List<String> sortedPrefixes = new ArrayList<>(prefixes);
+            Collections.sort(sortedPrefixes);
+            List<String> normalizedPrefixes = new ArrayList<>(sortedPrefixes.size());
+            for (String prefix : sortedPrefixes) {
+                if (normalizedPrefixes.isEmpty()
+                        || !prefix.startsWith(normalizedPrefixes.get(normalizedPrefixes.size() - 1))) {
+                    normalizedPrefixes.add(prefix);
+                }
+            }
+            return normalizedPrefixes;
+        }
+
+        private Content extract(List<String> prefixes) {
+            String[] keyIds = getSortedKeyIds();
+            Map<String, String> extractedTranslations = new HashMap<>();
+            for (String prefix : prefixes) {
+                int index = Arrays.binarySearch(keyIds, prefix);
+                int start = index < 0 ? -index - 1 : index;
+                for (int i = start; i < keyIds.length && keyIds[i].startsWith(prefix); i++) {
+                    extractedTranslations.put(keyIds[i], translations.get(keyIds[i]));
+                }
+            }
+            return new Content(Long.toHexString(digest(extractedTranslations)),
+                    Collections.unmodifiableMap(extractedTranslations));
+        }
+
+        private String[] getSortedKeyIds() {
+            // Concurrent sorts give the same result
+            String[] keyIds = sortedKeyIds;
+            if (keyIds == null) {
+                keyIds = translations.keySet().toArray(new String[0]);
+                Arrays.sort(keyIds);
+                sortedKeyIds = keyIds;
+            }
+            return keyIds;
+        }
+    }
+}
@@ -0,0 +1,169 @@
+/*
+ * Copyright © 2013-2020, The SeedStack authors <http://seedstack.org>
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.seedstack.i18n.internal.infrastructure.jpa;
+
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import javax.inject.Singleton;
+import org.seedstack.i18n.I18nConfig;
+import org.seedstack.seed.Configuration;
+
+/**
+ * Remembers which keys were written at each revision of the translations, to compute message deltas.
+ * <p>
+ * The revision is incremented each time committed writes are applied to the caches, so it follows the
+ * commit order. It is kept in memory: versions given to clients are prefixed by an epoch, renewed on
+ * startup and when all the bundles are invalidated, so versions of another epoch fall back to the whole
+ * messages. Only the last key changes are kept, older versions fall back to the whole messages as well.
+ * </p>
+ * <p>
+ * Each node has its own epoch and revisions, so a version is only understood by the node which returned
+ * it. When several nodes serve the messages behind a load balancer, deltas require sticky sessions: a
+ * client switching nodes gets the whole messages again.
+ * </p>
+ */
+@Singleton
+public class TranslationHistory {
+    private static final char VERSION_SEPARATOR = '-';
+    private final Deque<Change> changes = new ArrayDeque<>();
+    @Configuration
+    private I18nConfig.CacheConfig cacheConfig = new I18nConfig.CacheConfig();
+    private String epoch = newEpoch();
+    private long revision;
+    private long oldestRevision;
+
+    public TranslationHistory() {
+    }
+
+    /**
+     * Non injected constructor used for testing.
+     *
+     * @param cacheConfig the cache configuration
+     */
+    public TranslationHistory(I18nConfig.CacheConfig cacheConfig) {
+        this.cacheConfig = cacheConfig;
+    }
+
+    private static String newEpoch() {
+        return Long.toHexString(ThreadLocalRandom.current().nextLong() & Long.MAX_VALUE);
+    }
+
+    /**
+     * Returns the current version of the translations.
+     *
+     * @return the version
+     */
+    public synchronized String getVersion() {
+        return epoch + VERSION_SEPARATOR + revision;
+    }
+
+    /**
+     * Returns the keys written after the given version.
+     *
+     * @param version a version previously returned
+     * @return the written keys with the current version, or null if the version is unknown or too old
+     */
+    public synchronized Delta getChangesSince(String version) {
+        long sinceRevision = parseRevision(version);
+        if (sinceRevision < oldestRevision || sinceRevision > revision) {
+            return null;
+        }
+        Set<String> keyIds = new LinkedHashSet<>();
+        Iterator<Change> iterator = changes.descendingIterator();
+        while (iterator.hasNext()) {
+            Change change = iterator.next();
+            if (change.revision <= sinceRevision) {
+                break;
+            }
+            keyIds.add(change.keyId);
+        }
+        return new Delta(getVersion(), keyIds);
+    }
+
+    private long parseRevision(String version) {
+        if (version == null || !version.startsWith(epoch + VERSION_SEPARATOR)) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(version.substring(epoch.length() + 1));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Records a new revision for the given keys. The bundles must already contain the changes.
+     *
+     * @param keyIds the added, updated or removed keys
+     */
+    synchronized void keysChanged(Collection<String> keyIds) {
+        if (keyIds.isEmpty()) {
+            return;
+        }
+        revision++;
+        for (String keyId : keyIds) {
+            changes.addLast(new Change(revision, keyId));
+        }
+        while (changes.size() > cacheConfig.getHistorySize()) {
+            // Changes of the evicted revision may be partially remembered, so it cannot be used anymore
+            oldestRevision = changes.removeFirst().revision;
+        }
+    }
+
+    /**
+     * Starts a new epoch, as the changes of the bundles are not known anymore.
+     */
+    synchronized void reset() {
+        epoch = newEpoch();
+        revision = 0;
+        oldestRevision = 0;
+        changes.clear();
+    }
+
+    private static class Change {
+        private final long revision;
+        private final String keyId;
+
+        private Change(long revision, String keyId) {
+            this.revision = revision;
+            this.keyId = keyId;
+        }
+    }
+
+    /**
+     * The keys written since a version.
+     */
+    public static final class Delta {
+        private final String version;
+        private final Set<String> keyIds;
+
+        private Delta(String version, Set<String> keyIds) {
+            this.version = version;
+            this.keyIds = Collections.unmodifiableSet(keyIds);
+        }
+
+        /**
+         * Returns the version including the changes.
+         *
+         * @return the current version
+         */
+        public String getVersion() {
+            return version;
+        }
+
+        public Set<String> getKeyIds() {
+            return keyIds;
+        }
+    }
+}
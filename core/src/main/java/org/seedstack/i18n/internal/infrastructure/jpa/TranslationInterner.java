@@ -0,0 +1,61 @@
+/*
+ * Copyright © 2013-2020, The SeedStack authors <http://seedstack.org>
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.seedstack.i18n.internal.infrastructure.jpa;
+
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
+
+/**
+ * Replaces translations by a canonical instance, so identical texts loaded from different rows, e.g. "OK"
+ * in many keys or the same text in "fr" and "fr-BE", are only held once by the caches.
+ * <p>
+ * Canonical instances are weakly referenced, they are released once no cache uses them anymore. Each
+ * interner instance estimates the bytes it saved, i.e. the size of the duplicates it replaced.
+ * </p>
+ */
+final class TranslationInterner {
+    private static final Interner<String> INTERNER = Interners.newWeakInterner();
+    private static final long STRING_OVERHEAD_BYTES = 40;
+    private long savedBytes;
+
+    /**
+     * Returns the canonical instance of the given text.
+     *
+     * @param text the text or null
+     * @return the canonical instance or null
+     */
+    String intern(String text) {
+        if (text == null) {
+            return null;
+        }
+        String canonical = INTERNER.intern(text);
+        if (canonical != text) {
+            savedBytes += estimateBytes(text);
+        }
+        return canonical;
+    }
+
+    /**
+     * Returns the estimated size of the duplicates replaced by this interner.
+     *
+     * @return the saved bytes
+     */
+    long getSavedBytes() {
+        return savedBytes;
+    }
+
+    /**
+     * Estimates the heap used by a string, assuming two bytes per character.
+     *
+     * @param text the string
+     * @return the estimated size in bytes
+     */
+    static long estimateBytes(String text) {
+        return STRING_OVERHEAD_BYTES + 2L * text.length();
+    }
+}
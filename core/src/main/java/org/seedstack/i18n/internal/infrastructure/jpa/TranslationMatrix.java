@@ -0,0 +1,260 @@
+/*
+ * Copyright © 2013-2020, The SeedStack authors <http://seedstack.org>
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.seedstack.i18n.internal.infrastructure.jpa;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import org.seedstack.i18n.internal.domain.model.key.Key;
+import org.seedstack.i18n.internal.domain.model.key.Translation;
+
+/**
+ * Read-only table of translations, with one row per key and one column per locale.
+ * <p>
+ * Key ids are stored once, sorted, and located through an open addressing hash index, so a key resolves
+ * to a row index without hashing into per-key maps. Each locale gets an ordinal and a column holding the
+ * translation of each row, or null when it is missing. The outdated and approximate flags are kept in one
+ * bitset per column. Compared to a map of maps, no key string, map node or locale string is duplicated
+ * per translation. Rows built from keys hold interned strings, so identical translations are stored once.
+ * </p>
+ */
+final class TranslationMatrix {
+    private final String[] keyIds;
+    private final int[] hashIndex;
+    private final String[] locales;
+    private final String[][] columns;
+    private final BitSet[] outdated;
+    private final BitSet[] approximate;
+
+    private TranslationMatrix(String[] keyIds, String[] locales) {
+        this.keyIds = keyIds;
+        this.hashIndex = buildHashIndex(keyIds);
+        this.locales = locales;
+        this.columns = new String[locales.length][keyIds.length];
+        this.outdated = new BitSet[locales.length];
+        this.approximate = new BitSet[locales.length];
+        for (int i = 0; i < locales.length; i++) {
+            outdated[i] = new BitSet();
+            approximate[i] = new BitSet();
+        }
+    }
+
+    /**
+     * Builds a matrix from the given rows.
+     *
+     * @param rows the translations of each key, keys must be unique
+     * @return the matrix
+     */
+    static TranslationMatrix of(Collection<Row> rows) {
+        List<Row> sortedRows = new ArrayList<>(rows);
+        sortedRows.sort(Comparator.comparing(row -> row.keyId));
+        String[] keyIds = new String[sortedRows.size()];
+        SortedSet<String> locales = new TreeSet<>();
+        for (int i = 0; i < keyIds.length; i++) {
+            Row row = sortedRows.get(i);
+            keyIds[i] = row.keyId;
+            Collections.addAll(locales, row.locales);
+        }
+
+        TranslationMatrix matrix = new TranslationMatrix(keyIds, locales.toArray(new String[0]));
+        for (int i = 0; i < keyIds.length; i++) {
+            Row row = sortedRows.get(i);
+            for (int j = 0; j < row.locales.length; j++) {
+                int ordinal = matrix.localeOrdinal(row.locales[j]);
+                matrix.columns[ordinal][i] = row.values[j];
+                matrix.outdated[ordinal].set(i, row.outdated[j]);
+                matrix.approximate[ordinal].set(i, row.approximate[j]);
+            }
+        }
+        return matrix;
+    }
+
+    private static int[] buildHashIndex(String[] keyIds) {
+        // At most half full, so probe sequences stay short
+        int[] hashIndex = new int[Integer.highestOneBit(Math.max(2, keyIds.length * 2 - 1)) << 1];
+        int mask = hashIndex.length - 1;
+        for (int i = 0; i < keyIds.length; i++) {
+            int slot = spread(keyIds[i].hashCode()) & mask;
+            while (hashIndex[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            // Zero marks an empty slot, so row indexes are shifted by one
+            hashIndex[slot] = i + 1;
+        }
+        return hashIndex;
+    }
+
+    private static int spread(int hashCode) {
+        return hashCode ^ (hashCode >>> 16);
+    }
+
+    /**
+     * Returns the row of the given key.
+     *
+     * @param keyId the key name
+     * @return the row index or -1 if the key does not exist
+     */
+    int indexOf(String keyId) {
+        int mask = hashIndex.length - 1;
+        int slot = spread(keyId.hashCode()) & mask;
+        int entry;
+        while ((entry = hashIndex[slot]) != 0) {
+            if (keyIds[entry - 1].equals(keyId)) {
+                return entry - 1;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the column of the given locale.
+     *
+     * @param locale the locale code
+     * @return the locale ordinal or a negative value if no key is translated in this locale
+     */
+    int localeOrdinal(String locale) {
+        return Arrays.binarySearch(locales, locale);
+    }
+
+    String getTranslation(int index, String locale) {
+        int ordinal = localeOrdinal(locale);
+        return ordinal >= 0 ? columns[ordinal][index] : null;
+    }
+
+    boolean isOutdated(int index, String locale) {
+        int ordinal = localeOrdinal(locale);
+        return ordinal >= 0 && outdated[ordinal].get(index);
+    }
+
+    boolean isApproximate(int index, String locale) {
+        int ordinal = localeOrdinal(locale);
+        return ordinal >= 0 && approximate[ordinal].get(index);
+    }
+
+    String getKeyId(int index) {
+        return keyIds[index];
+    }
+
+    /**
+     * Extracts the translations of a key.
+     *
+     * @param index the row index
+     * @return the row
+     */
+    Row getRow(int index) {
+        int count = 0;
+        for (String[] column : columns) {
+            if (column[index] != null) {
+                count++;
+            }
+        }
+        Row row = new Row(keyIds[index], count);
+        int j = 0;
+        for (int ordinal = 0; ordinal < locales.length; ordinal++) {
+            if (columns[ordinal][index] != null) {
+                row.set(j++, locales[ordinal], columns[ordinal][index], outdated[ordinal].get(index),
+                        approximate[ordinal].get(index));
+            }
+        }
+        return row;
+    }
+
+    int size() {
+        return keyIds.length;
+    }
+
+    /**
+     * The translations of one key, with their flags.
+     */
+    static final class Row {
+        private final String keyId;
+        private final String[] locales;
+        private final String[] values;
+        private final boolean[] outdated;
+        private final boolean[] approximate;
+
+        private Row(String keyId, int size) {
+            this.keyId = keyId;
+            this.locales = new String[size];
+            this.values = new String[size];
+            this.outdated = new boolean[size];
+            this.approximate = new boolean[size];
+        }
+
+        static Row empty(String keyId) {
+            return new Row(keyId, 0);
+        }
+
+        static Row of(Key key, TranslationInterner interner) {
+            Map<String, Translation> translations = key.getTranslations();
+            Row row = new Row(interner.intern(key.getId()), translations.size());
+            int j = 0;
+            for (Map.Entry<String, Translation> entry : translations.entrySet()) {
+                Translation translation = entry.getValue();
+                row.set(j++, interner.intern(entry.getKey()), interner.intern(translation.getValue()),
+                        translation.isOutdated(), translation.isApproximate());
+            }
+            return row;
+        }
+
+        private void set(int j, String locale, String value, boolean outdated, boolean approximate) {
+            this.locales[j] = locale;
+            this.values[j] = value;
+            this.outdated[j] = outdated;
+            this.approximate[j] = approximate;
+        }
+
+        String getKeyId() {
+            return keyId;
+        }
+
+        private int indexOf(String locale) {
+            for (int j = 0; j < locales.length; j++) {
+                if (locales[j].equals(locale)) {
+                    return j;
+                }
+            }
+            return -1;
+        }
+
+        String getTranslation(String locale) {
+            int j = indexOf(locale);
+            return j >= 0 ? values[j] : null;
+        }
+
+        boolean isOutdated(String locale) {
+            int j = indexOf(locale);
+            return j >= 0 && outdated[j];
+        }
+
+        boolean isApproximate(String locale) {
+            int j = indexOf(locale);
+            return j >= 0 && approximate[j];
+        }
+
+        Map<String, String> toMap() {
+            if (locales.length == 0) {
+                return Collections.emptyMap();
+            }
+            Map<String, String> translations = new HashMap<>(locales.length * 4 / 3 + 1);
+            for (int j = 0; j < locales.length; j++) {
+                translations.put(locales[j], values[j]);
+            }
+            return Collections.unmodifiableMap(translations);
+        }
+    }
+}
@@ -0,0 +1,266 @@
+/*
+ * Copyright © 2013-2020, The SeedStack authors <http://seedstack.org>
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.seedstack.i18n.internal.infrastructure.jpa;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.seedstack.i18n.internal.domain.model.key.Key;
+import org.seedstack.i18n.internal.infrastructure.jpa.TranslationMatrix.Row;
+
+/**
+ * Immutable in-memory view of all the keys and their translations. Translations are stored in a compact
+ * {@link TranslationMatrix}, so a lookup walking a locale fallback chain only resolves the key once.
+ * <p>
+ * Updates never modify a snapshot but return a new one sharing the matrix: written keys are kept aside in
+ * a small overlay, which is merged into a new matrix once it grows beyond a fraction of the keys.
+ * </p>
+ */
+public final class TranslationSnapshot {
+    private static final int MIN_COMPACTION_THRESHOLD = 256;
+    private static final int COMPACTION_RATIO = 8;
+    private static final Row REMOVED = Row.empty("");
+    private final TranslationMatrix matrix;
+    private final Map<String, Row> overlay;
+    private final int size;
+    private final long deduplicatedBytes;
+
+    private TranslationSnapshot(TranslationMatrix matrix, Map<String, Row> overlay, int size,
+            long deduplicatedBytes) {
+        this.matrix = matrix;
+        this.overlay = overlay;
+        this.size = size;
+        this.deduplicatedBytes = deduplicatedBytes;
+    }
+
+    /**
+     * Builds a snapshot from the given keys.
+     *
+     * @param keys the keys with their translations
+     * @return the snapshot
+     */
+    static TranslationSnapshot of(Collection<Key> keys) {
+        TranslationInterner interner = new TranslationInterner();
+        List<Row> rows = new ArrayList<>(keys.size());
+        for (Key key : keys) {
+            rows.add(Row.of(key, interner));
+        }
+        TranslationMatrix matrix = TranslationMatrix.of(rows);
+        return new TranslationSnapshot(matrix, Collections.emptyMap(), matrix.size(), interner.getSavedBytes());
+    }
+
+    /**
+     * Indicates whether the key exists.
+     *
+     * @param key the key name
+     * @return true if the key exists, false otherwise
+     */
+    public boolean containsKey(String key) {
+        Row row = overlay.get(key);
+        if (row != null) {
+            return row != REMOVED;
+        }
+        return matrix.indexOf(key) >= 0;
+    }
+
+    /**
+     * Returns the translations of the given key indexed by locale. The map is built on each call, so
+     * lookups should rather use {@link #getTranslation(String, String[])}.
+     *
+     * @param key the key name
+     * @return the translations or null if the key does not exist
+     */
+    public Map<String, String> getTranslations(String key) {
+        Row row = overlay.get(key);
+        if (row == null) {
+            int index = matrix.indexOf(key);
+            row = index >= 0 ? matrix.getRow(index) : null;
+        }
+        return row != null && row != REMOVED ? row.toMap() : null;
+    }
+
+    /**
+     * Returns the translation of the given key in the exact given locale.
+     *
+     * @param key    the key name
+     * @param locale the locale code
+     * @return the translation or null if the key or the translation does not exist
+     */
+    public String getTranslation(String key, String locale) {
+        Row row = overlay.get(key);
+        if (row != null) {
+            return row.getTranslation(locale);
+        }
+        int index = matrix.indexOf(key);
+        return index >= 0 ? matrix.getTranslation(index, locale) : null;
+    }
+
+    /**
+     * Returns the translation of the given key in the first of the given locales which has one.
+     *
+     * @param key     the key name
+     * @param locales the locale codes, in order of preference
+     * @return the translation or null if the key or the translations do not exist
+     */
+    public String getTranslation(String key, String[] locales) {
+        Row row = overlay.get(key);
+        if (row != null) {
+            for (String locale : locales) {
+                String translation = row.getTranslation(locale);
+                if (translation != null) {
+                    return translation;
+                }
+            }
+            return null;
+        }
+        int index = matrix.indexOf(key);
+        if (index >= 0) {
+            for (String locale : locales) {
+                String translation = matrix.getTranslation(index, locale);
+                if (translation != null) {
+                    return translation;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Indicates whether the translation of the given key in the given locale is outdated, i.e. whether the
+     * default translation changed since.
+     *
+     * @param key    the key name
+     * @param locale the locale code
+     * @return true if the translation exists and is outdated
+     */
+    public boolean isOutdated(String key, String locale) {
+        Row row = overlay.get(key);
+        if (row != null) {
+            return row.isOutdated(locale);
+        }
+        int index = matrix.indexOf(key);
+        return index >= 0 && matrix.isOutdated(index, locale);
+    }
+
+    /**
+     * Indicates whether the translation of the given key in the given locale is marked as approximate.
+     *
+     * @param key    the key name
+     * @param locale the locale code
+     * @return true if the translation exists and is approximate
+     */
+    public boolean isApproximate(String key, String locale) {
+        Row row = overlay.get(key);
+        if (row != null) {
+            return row.isApproximate(locale);
+        }
+        int index = matrix.indexOf(key);
+        return index >= 0 && matrix.isApproximate(index, locale);
+    }
+
+    /**
+     * Returns the number of keys in the snapshot.
+     *
+     * @return the key count
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns an estimate of the heap saved by sharing identical strings, instead of holding the instances
+     * loaded from each row.
+     *
+     * @return the deduplicated size in bytes
+     */
+    public long getDeduplicatedBytes() {
+        return deduplicatedBytes;
+    }
+
+    /**
+     * Returns a new snapshot where the translations of the given key are replaced.
+     *
+     * @param key the added or updated key
+     * @return the new snapshot
+     */
+    TranslationSnapshot with(Key key) {
+        return patched(Collections.singleton(key), Collections.emptySet());
+    }
+
+    /**
+     * Returns a new snapshot where the given keys are replaced or removed, copying the overlay only once.
+     *
+     * @param updatedKeys the added or updated keys
+     * @param removedKeys the removed key names
+     * @return the new snapshot
+     */
+    TranslationSnapshot patched(Collection<Key> updatedKeys, Collection<String> removedKeys) {
+        Map<String, Row> patchedOverlay = new HashMap<>(overlay);
+        TranslationInterner interner = new TranslationInterner();
+        int patchedSize = size;
+        for (String removedKey : removedKeys) {
+            if (containsKey(removedKey, patchedOverlay)) {
+                patchedSize--;
+            }
+            patchedOverlay.put(removedKey, REMOVED);
+        }
+        for (Key updatedKey : updatedKeys) {
+            if (!containsKey(updatedKey.getId(), patchedOverlay)) {
+                patchedSize++;
+            }
+            patchedOverlay.put(updatedKey.getId(), Row.of(updatedKey, interner));
+        }
+        long patchedDeduplicatedBytes = deduplicatedBytes + interner.getSavedBytes();
+        if (patchedOverlay.size() > Math.max(MIN_COMPACTION_THRESHOLD, matrix.size() / COMPACTION_RATIO)) {
+            return compact(patchedOverlay, patchedDeduplicatedBytes);
+        }
+        return new TranslationSnapshot(matrix, Collections.unmodifiableMap(patchedOverlay), patchedSize,
+                patchedDeduplicatedBytes);
+    }
+
+    private boolean containsKey(String key, Map<String, Row> patchedOverlay) {
+        Row row = patchedOverlay.get(key);
+        if (row != null) {
+            return row != REMOVED;
+        }
+        return matrix.indexOf(key) >= 0;
+    }
+
+    private TranslationSnapshot compact(Map<String, Row> patchedOverlay, long patchedDeduplicatedBytes) {
+        List<Row> rows = new ArrayList<>(matrix.size() + patchedOverlay.size());
+        for (int i = 0; i < matrix.size(); i++) {
+            if (!patchedOverlay.containsKey(matrix.getKeyId(i))) {
+                rows.add(matrix.getRow(i));
+            }
+        }
+        for (Row row : patchedOverlay.values()) {
+            if (row != REMOVED) {
+                rows.add(row);
+            }
+        }
+        TranslationMatrix compacted = TranslationMatrix.of(rows);
+        return new TranslationSnapshot(compacted, Collections.emptyMap(), compacted.size(),
+                patchedDeduplicatedBytes);
+    }
+
+    /**
+     * Returns a new snapshot without the given key.
+     *
+     * @param keyId the removed key name
+     * @return the new snapshot
+     */
+    TranslationSnapshot without(String keyId) {
+        if (!containsKey(keyId)) {
+            return this;
+        }
+        return patched(Collections.emptySet(), Collections.singleton(keyId));
+    }
+}
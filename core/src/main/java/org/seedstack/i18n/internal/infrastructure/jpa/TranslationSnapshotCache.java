@@ -0,0 +1,213 @@
+/*
+ * Copyright © 2013-2020, The SeedStack authors <http://seedstack.org>
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.seedstack.i18n.internal.infrastructure.jpa;
+
+import com.google.common.base.Supplier;
+import com.google.common.base.Suppliers;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import org.seedstack.i18n.I18nConfig;
+import org.seedstack.i18n.internal.domain.model.key.Key;
+import org.seedstack.i18n.internal.domain.model.key.KeyRepository;
+import org.seedstack.jpa.JpaUnit;
+import org.seedstack.seed.Configuration;
+import org.seedstack.seed.transaction.Transactional;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Holds the current {@link TranslationSnapshot}. The snapshot is loaded lazily from the repository on first
+ * access, then patched by the {@link CacheSynchronizer} after each committed write, so reads never touch the
+ * database.
+ * <p>
+ * Unknown keys are also remembered in a bounded negative cache along with their placeholder, so that
+ * repeated lookups of the same missing key are answered without any further resolution. Creating or
+ * updating a key clears its negative entry.
+ * </p>
+ */
+@Singleton
+public class TranslationSnapshotCache {
+    private static final Logger LOGGER = LoggerFactory.getLogger(TranslationSnapshotCache.class);
+    private final Lock loadLock = new ReentrantLock();
+    private volatile TranslationSnapshot snapshot;
+    private volatile long generation;
+    @Inject
+    private KeyRepository keyRepository;
+    @Configuration
+    private I18nConfig.CacheConfig cacheConfig = new I18nConfig.CacheConfig();
+    private final Supplier<Cache<String, String>> missingKeys = Suppliers.memoize(
+            () -> CacheBuilder.newBuilder()
+                    .maximumSize(cacheConfig.getMissingKeyMaxSize())
+                    .concurrencyLevel(cacheConfig.getConcurrencyLevel())
+                    .recordStats()
+                    .build());
+
+    public TranslationSnapshotCache() {
+    }
+
+    /**
+     * Non injected constructor used for testing.
+     *
+     * @param keyRepository the key repository
+     */
+    public TranslationSnapshotCache(KeyRepository keyRepository) {
+        this.keyRepository = keyRepository;
+    }
+
+    /**
+     * Returns the current snapshot, loading it if necessary.
+     *
+     * @return the snapshot
+     */
+    public TranslationSnapshot get() {
+        CacheSynchronizer.PendingChanges pendingChanges = CacheSynchronizer.currentChanges();
+        if (pendingChanges != null) {
+            // The current transaction sees its own writes
+            return pendingChanges.applyTo(getCommitted());
+        }
+        return getCommitted();
+    }
+
+    private TranslationSnapshot getCommitted() {
+        TranslationSnapshot current = snapshot;
+        if (current != null) {
+            return current;
+        }
+        loadLock.lock();
+        try {
+            current = snapshot;
+            if (current == null) {
+                current = load();
+            }
+            return current;
+        } finally {
+            loadLock.unlock();
+        }
+    }
+
+    @JpaUnit("seed-i18n-domain")
+    @Transactional
+    TranslationSnapshot load() {
+        long loadGeneration = currentGeneration();
+        TranslationSnapshot loaded = TranslationSnapshot.of(keyRepository.loadAll());
+        LOGGER.debug("Loaded {} i18n keys, {} bytes saved by sharing identical translations", loaded.size(),
+                loaded.getDeduplicatedBytes());
+        synchronized (this) {
+            // Only publish the snapshot if no write happened while loading, otherwise it may be stale
+            if (generation == loadGeneration) {
+                snapshot = loaded;
+            }
+        }
+        return loaded;
+    }
+
+    /**
+     * Returns the placeholder of a key which doesn't exist, i.e. the key name between square brackets. The
+     * negative cache is only consulted once the snapshot lookup missed, so existing keys don't affect its
+     * statistics.
+     *
+     * @param keyName the key name
+     * @return the placeholder or null if the key exists
+     */
+    public String getMissingKeyPlaceholder(String keyName) {
+        if (keyName == null) {
+            return null;
+        }
+        long lookupGeneration = generation;
+        if (get().containsKey(keyName)) {
+            return null;
+        }
+        String placeholder = missingKeys.get().getIfPresent(keyName);
+        if (placeholder == null) {
+            placeholder = '[' + keyName + ']';
+            synchronized (this) {
+                // Don't remember the key as missing if it may have been created during the lookup, or if the
+                // lookup saw uncommitted changes
+                if (generation == lookupGeneration && CacheSynchronizer.currentChanges() == null) {
+                    missingKeys.get().put(keyName, placeholder);
+                }
+            }
+        }
+        return placeholder;
+    }
+
+    /**
+     * Indicates whether the transaction of the current thread wrote keys or locales which are not committed
+     * yet. What this thread reads meanwhile must not be stored in caches shared with other threads.
+     *
+     * @return true if the current thread has uncommitted changes
+     */
+    public boolean hasUncommittedChanges() {
+        return CacheSynchronizer.currentChanges() != null;
+    }
+
+    /**
+     * Returns a counter incremented on each write, allowing readers of the database to detect concurrent
+     * writes. It is only incremented while holding the lock of this cache.
+     *
+     * @return the current generation
+     */
+    long currentGeneration() {
+        return generation;
+    }
+
+    void keyUpdated(Key key) {
+        keysChanged(Collections.singleton(key), Collections.emptySet());
+    }
+
+    void keyRemoved(String keyId) {
+        keysChanged(Collections.emptySet(), Collections.singleton(keyId));
+    }
+
+    /**
+     * Applies the committed changes of a transaction to the snapshot at once.
+     *
+     * @param updatedKeys the added or updated keys
+     * @param removedKeys the removed key names
+     */
+    synchronized void keysChanged(Collection<Key> updatedKeys, Collection<String> removedKeys) {
+        generation++;
+        for (Key key : updatedKeys) {
+            missingKeys.get().invalidate(key.getId());
+        }
+        if (snapshot != null) {
+            snapshot = snapshot.patched(updatedKeys, removedKeys);
+        }
+    }
+
+    /**
+     * Returns the hit and miss counts of the negative cache of missing keys.
+     *
+     * @return the cache statistics
+     */
+    public CacheStats getMissingKeyStats() {
+        return missingKeys.get().stats();
+    }
+
+    /**
+     * Returns the approximate number of remembered missing keys.
+     *
+     * @return the number of entries
+     */
+    public long getMissingKeyCount() {
+        return missingKeys.get().size();
+    }
+
+    synchronized void invalidate() {
+        generation++;
+        missingKeys.get().invalidateAll();
+        snapshot = null;
+    }
+}
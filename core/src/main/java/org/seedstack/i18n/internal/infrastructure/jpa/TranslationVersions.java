@@ -0,0 +1,133 @@
+/*
+ * Copyright © 2013-2020, The SeedStack authors <http://seedstack.org>
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.seedstack.i18n.internal.infrastructure.jpa;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import javax.inject.Singleton;
+
+/**
+ * The versions of the translation bundles held by the cache, so that clients can be told their messages
+ * did not change without loading the bundles.
+ * <p>
+ * A version is registered when a bundle is read from the cache, replaced by the {@link I18nCacheUpdater}
+ * when the bundle is patched, and dropped when the bundle leaves the cache. The versions of the messages
+ * filtered by prefixes are registered along with the version of the bundle they were extracted from.
+ * </p>
+ */
+@Singleton
+public class TranslationVersions {
+    private static final int MAX_PREFIX_VERSIONS = 64;
+    private final ConcurrentMap<String, Versions> versions = new ConcurrentHashMap<>();
+
+    /**
+     * Returns the version of the cached messages of a locale.
+     *
+     * @param locale   the locale
+     * @param prefixes the prefixes of the requested keys, empty for all the messages
+     * @return the version, or null if it is not known without loading the messages
+     */
+    public String getVersion(String locale, List<String> prefixes) {
+        Versions localeVersions = versions.get(locale);
+        if (localeVersions == null) {
+            return null;
+        }
+        if (prefixes.isEmpty()) {
+            return localeVersions.content.getVersion();
+        }
+        return localeVersions.prefixVersions.get(prefixKey(prefixes));
+    }
+
+    /**
+     * Registers the version of messages filtered from the content of a bundle. Nothing is registered if the
+     * bundle changed meanwhile.
+     *
+     * @param locale          the locale
+     * @param content         the content of the bundle
+     * @param prefixes        the prefixes used to filter the content
+     * @param filteredContent the filtered content
+     */
+    public void filtered(String locale, TranslationBundle.Content content, List<String> prefixes,
+            TranslationBundle.Content filteredContent) {
+        Versions localeVersions = versions.get(locale);
+        // Prefixes come from the outside world, so the number of kept versions is bounded
+        if (localeVersions != null && localeVersions.content == content
+                && localeVersions.prefixVersions.size() < MAX_PREFIX_VERSIONS) {
+            localeVersions.prefixVersions.putIfAbsent(prefixKey(prefixes), filteredContent.getVersion());
+        }
+    }
+
+    private static String prefixKey(List<String> prefixes) {
+        return String.join("\0", prefixes);
+    }
+
+    /**
+     * Tells if the current content of a bundle read from the cache is registered.
+     *
+     * @param locale            the locale of the bundle
+     * @param translationBundle the bundle
+     * @return true if its version is already known
+     */
+    boolean isRegistered(String locale, TranslationBundle translationBundle) {
+        Versions localeVersions = versions.get(locale);
+        return localeVersions != null && localeVersions.bundle == translationBundle
+                && localeVersions.content == translationBundle.getContent();
+    }
+
+    /**
+     * Registers the version of a bundle read from the cache.
+     *
+     * @param locale            the locale of the bundle
+     * @param translationBundle the bundle
+     */
+    void register(String locale, TranslationBundle translationBundle) {
+        versions.put(locale, new Versions(translationBundle));
+    }
+
+    /**
+     * Registers the new version of a patched bundle, if the bundle is still registered.
+     *
+     * @param locale            the locale of the bundle
+     * @param translationBundle the bundle
+     */
+    void patched(String locale, TranslationBundle translationBundle) {
+        versions.computeIfPresent(locale, (key, localeVersions) -> localeVersions.bundle != translationBundle
+                || localeVersions.content == translationBundle.getContent()
+                ? localeVersions : new Versions(translationBundle));
+    }
+
+    /**
+     * Forgets the version of a bundle which left the cache.
+     *
+     * @param locale            the locale of the bundle
+     * @param translationBundle the bundle
+     */
+    void removed(String locale, TranslationBundle translationBundle) {
+        versions.computeIfPresent(locale, (key, localeVersions) -> localeVersions.bundle == translationBundle
+                ? null : localeVersions);
+    }
+
+    /**
+     * Forgets all the versions, when the bundles are about to be dropped or reloaded.
+     */
+    void clear() {
+        versions.clear();
+    }
+
+    private static class Versions {
+        private final TranslationBundle bundle;
+        private final TranslationBundle.Content content;
+        private final ConcurrentMap<String, String> prefixVersions = new ConcurrentHashMap<>();
+
+        private Versions(TranslationBundle bundle) {
+            this.bundle = bundle;
+            this.content = bundle.getContent();
+        }
+    }
+}
@@ -0,0 +1,125 @@
+/*
+ * Copyright © 2013-2020, The SeedStack authors <http://seedstack.org>
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.seedstack.i18n.internal.infrastructure.service;
+
+import com.google.common.cache.CacheStats;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Immutable snapshot of the statistics of one of the i18n caches.
+ */
+public final class CacheStatistics {
+    private final String name;
+    private final long hitCount;
+    private final long missCount;
+    private final double hitRate;
+    private final long loadCount;
+    private final double averageLoadTime;
+    private final long evictionCount;
+    private final long estimatedSize;
+    private final long deduplicatedBytes;
+
+    private CacheStatistics(String name, CacheStats stats, long estimatedSize, long deduplicatedBytes) {
+        this.name = name;
+        this.hitCount = stats.hitCount();
+        this.missCount = stats.missCount();
+        this.hitRate = stats.hitRate();
+        this.loadCount = stats.loadCount();
+        this.averageLoadTime = stats.averageLoadPenalty() / TimeUnit.MILLISECONDS.toNanos(1);
+        this.evictionCount = stats.evictionCount();
+        this.estimatedSize = estimatedSize;
+        this.deduplicatedBytes = deduplicatedBytes;
+    }
+
+    /**
+     * Creates a snapshot of the given Guava statistics.
+     *
+     * @param name          the name of the cache
+     * @param stats         the statistics recorded by the cache
+     * @param estimatedSize the approximate number of entries
+     * @return the snapshot
+     */
+    public static CacheStatistics of(String name, CacheStats stats, long estimatedSize) {
+        return new CacheStatistics(name, stats, estimatedSize, 0);
+    }
+
+    /**
+     * Creates a snapshot of the given Guava statistics, for a cache sharing identical strings.
+     *
+     * @param name              the name of the cache
+     * @param stats             the statistics recorded by the cache
+     * @param estimatedSize     the approximate number of entries
+     * @param deduplicatedBytes the estimated heap saved by sharing strings
+     * @return the snapshot
+     */
+    public static CacheStatistics of(String name, CacheStats stats, long estimatedSize, long deduplicatedBytes) {
+        return new CacheStatistics(name, stats, estimatedSize, deduplicatedBytes);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public long getHitCount() {
+        return hitCount;
+    }
+
+    public long getMissCount() {
+        return missCount;
+    }
+
+    /**
+     * Returns the ratio of lookups which were hits, or 1 if the cache was never used.
+     *
+     * @return the hit rate
+     */
+    public double getHitRate() {
+        return hitRate;
+    }
+
+    /**
+     * Returns the number of entries computed by the cache, including failed computations and refreshes.
+     *
+     * @return the load count
+     */
+    public long getLoadCount() {
+        return loadCount;
+    }
+
+    /**
+     * Returns the average time spent computing an entry, in milliseconds.
+     *
+     * @return the average load time
+     */
+    public double getAverageLoadTime() {
+        return averageLoadTime;
+    }
+
+    public long getEvictionCount() {
+        return evictionCount;
+    }
+
+    /**
+     * Returns the approximate number of entries in the cache.
+     *
+     * @return the estimated size
+     */
+    public long getEstimatedSize() {
+        return estimatedSize;
+    }
+
+    /**
+     * Returns the estimated heap saved by sharing identical strings between entries, or zero if the cache
+     * doesn't hold strings.
+     *
+     * @return the deduplicated size in bytes
+     */
+    public long getDeduplicatedBytes() {
+        return deduplicatedBytes;
+    }
+}
@@ -0,0 +1,35 @@
+/*
+ * Copyright © 2013-2020, The SeedStack authors <http://seedstack.org>
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.seedstack.i18n.internal.infrastructure.service;
+
+/**
+ * Management interface exposing the statistics of one of the i18n caches over JMX.
+ */
+public interface CacheStatisticsMXBean {
+    long getHitCount();
+
+    long getMissCount();
+
+    double getHitRate();
+
+    long getLoadCount();
+
+    /**
+     * @return the average time spent computing an entry, in milliseconds
+     */
+    double getAverageLoadTime();
+
+    long getEvictionCount();
+
+    long getEstimatedSize();
+
+    /**
+     * @return the estimated heap saved by sharing identical strings, in bytes
+     */
+    long getDeduplicatedBytes();
+}
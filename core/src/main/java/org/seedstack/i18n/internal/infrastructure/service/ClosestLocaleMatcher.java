@@ -0,0 +1,118 @@
+/*
+ * Copyright © 2013-2020, The SeedStack authors <http://seedstack.org>
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.seedstack.i18n.internal.infrastructure.service;
+
+import com.google.common.cache.AbstractCache;
+import com.ibm.icu.util.LocaleMatcher;
+import com.ibm.icu.util.LocalePriorityList;
+import com.ibm.icu.util.ULocale;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import org.seedstack.i18n.internal.infrastructure.jpa.LocaleSnapshot;
+
+/**
+ * Resolves the closest available locale of a requested locale. The ICU matcher is built once for a
+ * given {@link LocaleSnapshot} and the best matches are memoized by requested locale.
+ */
+class ClosestLocaleMatcher {
+    private static final int MAX_MEMOIZED_LOCALES = 1024;
+    private final LocaleSnapshot localeSnapshot;
+    private final LocaleMatcher localeMatcher;
+    private final ConcurrentMap<String, Optional<String>> bestMatches = new ConcurrentHashMap<>();
+    private final AbstractCache.StatsCounter statsCounter;
+
+    ClosestLocaleMatcher(LocaleSnapshot localeSnapshot, AbstractCache.StatsCounter statsCounter) {
+        this.localeSnapshot = localeSnapshot;
+        this.statsCounter = statsCounter;
+        this.localeMatcher = buildLocaleMatcher(localeSnapshot);
+    }
+
+    private static LocaleMatcher buildLocaleMatcher(LocaleSnapshot localeSnapshot) {
+        String defaultLocale = localeSnapshot.getDefaultLocale();
+        LocalePriorityList.Builder builder = null;
+        if (defaultLocale != null) {
+            builder = LocalePriorityList.add(defaultLocale);
+        }
+        for (String availableLocale : localeSnapshot.getAvailableLocales()) {
+            if (defaultLocale == null || !defaultLocale.equals(availableLocale)) {
+                if (builder == null) {
+                    builder = LocalePriorityList.add(availableLocale);
+                } else {
+                    builder.add(availableLocale);
+                }
+            }
+        }
+        if (builder != null) {
+            return new LocaleMatcher(builder.build());
+        } else {
+            return null;
+        }
+    }
+
+    /**
+     * Indicates whether this matcher reflects the given locales.
+     *
+     * @param localeSnapshot the current locales
+     * @return true if the matcher was built from the given snapshot, false otherwise
+     */
+    boolean isBuiltFrom(LocaleSnapshot localeSnapshot) {
+        return this.localeSnapshot == localeSnapshot;
+    }
+
+    /**
+     * Returns the closest available locale.
+     *
+     * @param locale the requested locale
+     * @return the closest locale or null if there is no close locale
+     */
+    String getClosestLocale(String locale) {
+        if (locale == null) {
+            return toLanguageTag(findClosestULocale(null));
+        }
+        Optional<String> bestMatch = bestMatches.get(locale);
+        if (bestMatch != null) {
+            statsCounter.recordHits(1);
+        } else {
+            statsCounter.recordMisses(1);
+            bestMatch = Optional.ofNullable(toLanguageTag(findClosestULocale(locale)));
+            // Requested locales come from the outside world, so the memo is bounded
+            if (bestMatches.size() < MAX_MEMOIZED_LOCALES) {
+                bestMatches.putIfAbsent(locale, bestMatch);
+            }
+        }
+        return bestMatch.orElse(null);
+    }
+
+    /**
+     * Returns the number of memoized best matches.
+     *
+     * @return the number of entries
+     */
+    int size() {
+        return bestMatches.size();
+    }
+
+    private ULocale findClosestULocale(String locale) {
+        if (localeSnapshot.isAvailable(locale)) {
+            return new ULocale(locale);
+        }
+        if (localeMatcher != null) {
+            // The ICU matcher is not documented as thread-safe
+            synchronized (localeMatcher) {
+                return localeMatcher.getBestMatch(locale);
+            }
+        } else {
+            return null;
+        }
+    }
+
+    private String toLanguageTag(ULocale uLocale) {
+        return uLocale != null ? uLocale.toLanguageTag() : null;
+    }
+}
@@ -0,0 +1,136 @@
+/*
+ * Copyright © 2013-2020, The SeedStack authors <http://seedstack.org>
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.seedstack.i18n.internal.infrastructure.service;
+
+import com.google.common.base.Strings;
+import com.google.common.cache.AbstractCache;
+import com.google.common.cache.CacheStats;
+import com.ibm.icu.util.ULocale;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import org.seedstack.i18n.internal.infrastructure.jpa.LocaleSnapshot;
+import org.seedstack.i18n.internal.infrastructure.jpa.LocaleSnapshotCache;
+
+/**
+ * Caches the translation resolution chain of each locale, e.g. "fr-BE" then "fr", optionally followed
+ * by the default locale. Chains of the available locales are computed when the locales are loaded,
+ * chains of other requested locales on first use. All of them are discarded when the available
+ * locales or the default locale change.
+ */
+@Singleton
+class FallbackChainCache {
+    private static final int MAX_REQUESTED_LOCALES = 1024;
+    private final LocaleSnapshotCache localeSnapshotCache;
+    private final AbstractCache.StatsCounter statsCounter = new AbstractCache.SimpleStatsCounter();
+    private volatile FallbackChains fallbackChains;
+
+    @Inject
+    FallbackChainCache(LocaleSnapshotCache localeSnapshotCache) {
+        this.localeSnapshotCache = localeSnapshotCache;
+    }
+
+    /**
+     * Returns the locales to look up, in order, when translating in the given locale.
+     * The returned array is shared and must not be modified.
+     *
+     * @param locale            the requested locale
+     * @param withDefaultLocale true to end the chain with the default locale
+     * @return the resolution chain
+     */
+    String[] getFallbackChain(String locale, boolean withDefaultLocale) {
+        LocaleSnapshot localeSnapshot = localeSnapshotCache.get();
+        FallbackChains current = fallbackChains;
+        if (current == null || current.localeSnapshot != localeSnapshot) {
+            current = new FallbackChains(localeSnapshot, statsCounter);
+            fallbackChains = current;
+        }
+        FallbackChain fallbackChain = current.get(locale);
+        return withDefaultLocale ? fallbackChain.withDefaultLocale : fallbackChain.parentLocales;
+    }
+
+    /**
+     * Returns the hit and miss counts of the cached chains, across the successive locale snapshots.
+     *
+     * @return the statistics
+     */
+    CacheStats getStats() {
+        return statsCounter.snapshot();
+    }
+
+    /**
+     * Returns the number of cached chains.
+     *
+     * @return the number of entries
+     */
+    long size() {
+        FallbackChains current = fallbackChains;
+        return current != null ? current.chains.size() : 0;
+    }
+
+    private static class FallbackChains {
+        private final LocaleSnapshot localeSnapshot;
+        private final AbstractCache.StatsCounter statsCounter;
+        private final ConcurrentMap<String, FallbackChain> chains = new ConcurrentHashMap<>();
+
+        private FallbackChains(LocaleSnapshot localeSnapshot, AbstractCache.StatsCounter statsCounter) {
+            this.localeSnapshot = localeSnapshot;
+            this.statsCounter = statsCounter;
+            for (String availableLocale : localeSnapshot.getAvailableLocales()) {
+                chains.put(availableLocale, computeChain(availableLocale));
+            }
+        }
+
+        private FallbackChain get(String locale) {
+            if (locale == null) {
+                return computeChain(null);
+            }
+            FallbackChain fallbackChain = chains.get(locale);
+            if (fallbackChain != null) {
+                statsCounter.recordHits(1);
+            } else {
+                statsCounter.recordMisses(1);
+                fallbackChain = computeChain(locale);
+                // Requested locales come from the outside world, so the number of cached chains is bounded
+                if (chains.size() < localeSnapshot.getAvailableLocales().size() + MAX_REQUESTED_LOCALES) {
+                    chains.putIfAbsent(locale, fallbackChain);
+                }
+            }
+            return fallbackChain;
+        }
+
+        private FallbackChain computeChain(String locale) {
+            List<String> locales = new ArrayList<>();
+            ULocale current = new ULocale(locale);
+            while (current != null && !Strings.isNullOrEmpty(current.toString())) {
+                locales.add(current.toLanguageTag());
+                current = current.getFallback();
+            }
+            String[] parentLocales = locales.toArray(new String[0]);
+
+            String defaultLocale = localeSnapshot.getDefaultLocale();
+            if (defaultLocale != null && !locales.contains(defaultLocale)) {
+                locales.add(defaultLocale);
+            }
+            return new FallbackChain(parentLocales, locales.toArray(new String[0]));
+        }
+    }
+
+    private static class FallbackChain {
+        private final String[] parentLocales;
+        private final String[] withDefaultLocale;
+
+        private FallbackChain(String[] parentLocales, String[] withDefaultLocale) {
+            this.parentLocales = parentLocales;
+            this.withDefaultLocale = withDefaultLocale;
+        }
+    }
+}
@@ -0,0 +1,55 @@
+/*
+ * Copyright © 2013-2020, The SeedStack authors <http://seedstack.org>
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.seedstack.i18n.internal.infrastructure.service;
+
+/**
+ * A {@link StringBuffer} reused by each thread, for ICU formats which can only write into a
+ * {@link StringBuffer} when the caller gave another kind of appendable.
+ */
+final class FormatBuffer {
+    private static final int MAX_KEPT_CAPACITY = 8192;
+    private static final ThreadLocal<FormatBuffer> FORMAT_BUFFERS = ThreadLocal.withInitial(FormatBuffer::new);
+    private StringBuffer buffer = new StringBuffer();
+    private boolean inUse;
+
+    private FormatBuffer() {
+    }
+
+    /**
+     * Returns the empty buffer of the current thread, or a new buffer if it is already in use, e.g. when the
+     * appendable formats other messages while being appended to.
+     *
+     * @return an empty buffer
+     */
+    static StringBuffer acquire() {
+        FormatBuffer formatBuffer = FORMAT_BUFFERS.get();
+        if (formatBuffer.inUse) {
+            return new StringBuffer();
+        }
+        formatBuffer.inUse = true;
+        return formatBuffer.buffer;
+    }
+
+    /**
+     * Gives back a buffer returned by {@link #acquire()}.
+     *
+     * @param usedBuffer the buffer
+     */
+    static void release(StringBuffer usedBuffer) {
+        FormatBuffer formatBuffer = FORMAT_BUFFERS.get();
+        if (usedBuffer == formatBuffer.buffer) {
+            if (usedBuffer.capacity() > MAX_KEPT_CAPACITY) {
+                // Don't keep the memory of an unusually long message for the lifetime of the thread
+                formatBuffer.buffer = new StringBuffer();
+            } else {
+                usedBuffer.setLength(0);
+            }
+            formatBuffer.inUse = false;
+        }
+    }
+}
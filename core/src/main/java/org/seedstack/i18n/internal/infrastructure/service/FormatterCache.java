@@ -0,0 +1,157 @@
+/*
+ * Copyright © 2013-2020, The SeedStack authors <http://seedstack.org>
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.seedstack.i18n.internal.infrastructure.service;
+
+import com.google.common.base.Strings;
+import com.google.common.base.Supplier;
+import com.google.common.base.Suppliers;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.ibm.icu.text.DateFormat;
+import com.ibm.icu.text.NumberFormat;
+import com.ibm.icu.util.Currency;
+import com.ibm.icu.util.TimeZone;
+import com.ibm.icu.util.ULocale;
+import java.text.Format;
+import java.util.Objects;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import javax.inject.Singleton;
+import org.seedstack.i18n.I18nConfig;
+import org.seedstack.seed.Configuration;
+
+/**
+ * Bounded cache of ICU date, number and currency formatters, indexed by locale, skeleton, timezone and
+ * currency.
+ * <p>
+ * Building a formatter loads locale data and, for dates, resolves the skeleton through a
+ * {@code DateTimePatternGenerator}. Cached formatters are configured once and used as prototypes: as ICU
+ * formatters are not thread-safe, each call gets its own clone.
+ * </p>
+ */
+@Singleton
+class FormatterCache {
+    @Configuration
+    private I18nConfig.CacheConfig cacheConfig = new I18nConfig.CacheConfig();
+    private final Supplier<Cache<FormatterKey, Format>> cache = Suppliers.memoize(
+            () -> CacheBuilder.newBuilder()
+                    .maximumSize(cacheConfig.getFormatterMaxSize())
+                    .concurrencyLevel(cacheConfig.getConcurrencyLevel())
+                    .recordStats()
+                    .build());
+
+    /**
+     * Returns a date formatter for the given skeleton.
+     *
+     * @param locale   the resolved locale
+     * @param skeleton the pattern elements to include
+     * @param timezone the timezone identifier or null to use the default timezone
+     * @return a formatter owned by the caller
+     */
+    DateFormat getDateFormat(ULocale locale, String skeleton, String timezone) {
+        return (DateFormat) get(new FormatterKey(FormatterType.DATE, locale, skeleton, timezone), () -> {
+            DateFormat formatter = DateFormat.getPatternInstance(skeleton, locale);
+            if (!Strings.isNullOrEmpty(timezone)) {
+                formatter.setTimeZone(TimeZone.getTimeZone(timezone));
+            }
+            return formatter;
+        });
+    }
+
+    /**
+     * Returns a number formatter.
+     *
+     * @param locale the resolved locale
+     * @return a formatter owned by the caller
+     */
+    NumberFormat getNumberFormat(ULocale locale) {
+        return (NumberFormat) get(new FormatterKey(FormatterType.NUMBER, locale, null, null),
+                () -> NumberFormat.getInstance(locale));
+    }
+
+    /**
+     * Returns a currency formatter for the given currency.
+     *
+     * @param locale   the resolved locale
+     * @param currency the currency
+     * @return a formatter owned by the caller
+     */
+    NumberFormat getCurrencyFormat(ULocale locale, Currency currency) {
+        return (NumberFormat) get(new FormatterKey(FormatterType.CURRENCY, locale, currency.getCurrencyCode(), null),
+                () -> {
+                    NumberFormat formatter = NumberFormat.getCurrencyInstance(locale);
+                    formatter.setCurrency(currency);
+                    return formatter;
+                });
+    }
+
+    /**
+     * Returns the hit and miss counts of the cache.
+     *
+     * @return the cache statistics
+     */
+    CacheStats getStats() {
+        return cache.get().stats();
+    }
+
+    /**
+     * Returns the approximate number of cached formatters.
+     *
+     * @return the number of entries
+     */
+    long size() {
+        return cache.get().size();
+    }
+
+    private Format get(FormatterKey formatterKey, Callable<Format> formatterFactory) {
+        try {
+            return (Format) cache.get().get(formatterKey, formatterFactory).clone();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Unable to create formatter for " + formatterKey.locale, e.getCause());
+        }
+    }
+
+    private enum FormatterType {
+        DATE, NUMBER, CURRENCY
+    }
+
+    private static class FormatterKey {
+        private final FormatterType type;
+        private final ULocale locale;
+        private final String pattern;
+        private final String timezone;
+
+        private FormatterKey(FormatterType type, ULocale locale, String pattern, String timezone) {
+            this.type = type;
+            this.locale = locale;
+            this.pattern = pattern;
+            this.timezone = Strings.emptyToNull(timezone);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            FormatterKey that = (FormatterKey) o;
+            return type == that.type
+                    && locale.equals(that.locale)
+                    && Objects.equals(pattern, that.pattern)
+                    && Objects.equals(timezone, that.timezone);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(type, locale, pattern, timezone);
+        }
+    }
+}
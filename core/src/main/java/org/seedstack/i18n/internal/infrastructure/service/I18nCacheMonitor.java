@@ -0,0 +1,216 @@
+/*
+ * Copyright © 2013-2020, The SeedStack authors <http://seedstack.org>
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.seedstack.i18n.internal.infrastructure.service;
+
+import com.google.common.cache.LoadingCache;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import org.seedstack.i18n.internal.infrastructure.jpa.TranslationBundle;
+import org.seedstack.i18n.internal.infrastructure.jpa.TranslationSnapshotCache;
+import org.seedstack.seed.LifecycleListener;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Gives access to the statistics of the i18n caches: the translation bundles, the negative cache of
+ * missing keys, the compiled messages, the formatters, the locale fallback chains and the closest
+ * locales.
+ * <p>
+ * The statistics are also published over JMX, one MBean per cache named
+ * {@code org.seedstack.i18n:type=Cache,name=<cache>}, for the lifetime of the application.
+ * </p>
+ */
+@Singleton
+public class I18nCacheMonitor implements LifecycleListener {
+    public static final String TRANSLATION_BUNDLES = "translationBundles";
+    public static final String MISSING_KEYS = "missingKeys";
+    public static final String MESSAGE_FORMATS = "messageFormats";
+    public static final String FORMATTERS = "formatters";
+    public static final String FALLBACK_CHAINS = "fallbackChains";
+    public static final String CLOSEST_LOCALES = "closestLocales";
+    public static final List<String> CACHE_NAMES = Collections.unmodifiableList(Arrays.asList(TRANSLATION_BUNDLES,
+            MISSING_KEYS, MESSAGE_FORMATS, FORMATTERS, FALLBACK_CHAINS, CLOSEST_LOCALES));
+    private static final Logger LOGGER = LoggerFactory.getLogger(I18nCacheMonitor.class);
+    private static final String OBJECT_NAME_PREFIX = "org.seedstack.i18n:type=Cache,name=";
+    private final List<ObjectName> registeredNames = new ArrayList<>();
+    @Inject
+    private LoadingCache<String, TranslationBundle> loadingCache;
+    @Inject
+    private TranslationSnapshotCache translationSnapshotCache;
+    @Inject
+    private MessageFormatCache messageFormatCache;
+    @Inject
+    private FormatterCache formatterCache;
+    @Inject
+    private FallbackChainCache fallbackChainCache;
+    @Inject
+    private ICULocaleService localeService;
+
+    public I18nCacheMonitor() {
+    }
+
+    /**
+     * Non injected constructor used for testing.
+     *
+     * @param loadingCache             the translation bundles
+     * @param translationSnapshotCache the translation snapshot
+     * @param messageFormatCache       the compiled messages
+     * @param formatterCache           the formatters
+     * @param fallbackChainCache       the locale fallback chains
+     * @param localeService            the locale service, holding the closest locales
+     */
+    I18nCacheMonitor(LoadingCache<String, TranslationBundle> loadingCache,
+            TranslationSnapshotCache translationSnapshotCache, MessageFormatCache messageFormatCache,
+            FormatterCache formatterCache, FallbackChainCache fallbackChainCache, ICULocaleService localeService) {
+        this.loadingCache = loadingCache;
+        this.translationSnapshotCache = translationSnapshotCache;
+        this.messageFormatCache = messageFormatCache;
+        this.formatterCache = formatterCache;
+        this.fallbackChainCache = fallbackChainCache;
+        this.localeService = localeService;
+    }
+
+    /**
+     * Returns the current statistics of each cache, indexed by cache name.
+     *
+     * @return the statistics
+     */
+    public Map<String, CacheStatistics> getStatistics() {
+        Map<String, CacheStatistics> statistics = new LinkedHashMap<>();
+        for (String name : CACHE_NAMES) {
+            statistics.put(name, getStatistics(name));
+        }
+        return statistics;
+    }
+
+    /**
+     * Returns the current statistics of the given cache, without computing the statistics of the others.
+     *
+     * @param name the name of the cache
+     * @return the statistics
+     * @throws IllegalArgumentException if the cache is unknown
+     */
+    public CacheStatistics getStatistics(String name) {
+        switch (name) {
+            case TRANSLATION_BUNDLES:
+                return CacheStatistics.of(name, loadingCache.stats(), loadingCache.size(), getDeduplicatedBytes());
+            case MISSING_KEYS:
+                return CacheStatistics.of(name, translationSnapshotCache.getMissingKeyStats(),
+                        translationSnapshotCache.getMissingKeyCount());
+            case MESSAGE_FORMATS:
+                return CacheStatistics.of(name, messageFormatCache.getStats(), messageFormatCache.size());
+            case FORMATTERS:
+                return CacheStatistics.of(name, formatterCache.getStats(), formatterCache.size());
+            case FALLBACK_CHAINS:
+                return CacheStatistics.of(name, fallbackChainCache.getStats(), fallbackChainCache.size());
+            case CLOSEST_LOCALES:
+                return CacheStatistics.of(name, localeService.getClosestLocaleStats(),
+                        localeService.getClosestLocaleCount());
+            default:
+                throw new IllegalArgumentException("Unknown i18n cache: " + name);
+        }
+    }
+
+    private long getDeduplicatedBytes() {
+        long deduplicatedBytes = 0;
+        for (TranslationBundle translationBundle : loadingCache.asMap().values()) {
+            deduplicatedBytes += translationBundle.getDeduplicatedBytes();
+        }
+        return deduplicatedBytes;
+    }
+
+    @Override
+    public synchronized void started() {
+        MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+        for (String name : CACHE_NAMES) {
+            try {
+                ObjectName objectName = new ObjectName(OBJECT_NAME_PREFIX + name);
+                mBeanServer.registerMBean(new CacheStatisticsBean(() -> getStatistics(name)), objectName);
+                registeredNames.add(objectName);
+            } catch (InstanceAlreadyExistsException e) {
+                // Another application of the JVM already publishes its own caches
+                LOGGER.warn("Statistics of the i18n cache \"{}\" are already published over JMX", name);
+            } catch (JMException e) {
+                LOGGER.warn("Unable to publish the statistics of the i18n cache \"{}\" over JMX", name, e);
+            }
+        }
+    }
+
+    @Override
+    public synchronized void stopping() {
+        MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+        for (ObjectName objectName : registeredNames) {
+            try {
+                mBeanServer.unregisterMBean(objectName);
+            } catch (JMException e) {
+                LOGGER.debug("Unable to unregister {}", objectName, e);
+            }
+        }
+        registeredNames.clear();
+    }
+
+    private static class CacheStatisticsBean implements CacheStatisticsMXBean {
+        private final Supplier<CacheStatistics> statistics;
+
+        private CacheStatisticsBean(Supplier<CacheStatistics> statistics) {
+            this.statistics = statistics;
+        }
+
+        @Override
+        public long getHitCount() {
+            return statistics.get().getHitCount();
+        }
+
+        @Override
+        public long getMissCount() {
+            return statistics.get().getMissCount();
+        }
+
+        @Override
+        public double getHitRate() {
+            return statistics.get().getHitRate();
+        }
+
+        @Override
+        public long getLoadCount() {
+            return statistics.get().getLoadCount();
+        }
+
+        @Override
+        public double getAverageLoadTime() {
+            return statistics.get().getAverageLoadTime();
+        }
+
+        @Override
+        public long getEvictionCount() {
+            return statistics.get().getEvictionCount();
+        }
+
+        @Override
+        public long getEstimatedSize() {
+            return statistics.get().getEstimatedSize();
+        }
+
+        @Override
+        public long getDeduplicatedBytes() {
+            return statistics.get().getDeduplicatedBytes();
+        }
+    }
+}
@@ -7,42 +7,54 @@
  */
 package org.seedstack.i18n.internal.infrastructure.service;
 
-import com.ibm.icu.util.LocaleMatcher;
-import com.ibm.icu.util.LocalePriorityList;
+import com.google.common.cache.AbstractCache;
+import com.google.common.cache.CacheStats;
 import com.ibm.icu.util.ULocale;
 import java.util.HashSet;
 import java.util.Set;
 import javax.inject.Inject;
+import javax.inject.Singleton;
 import org.seedstack.i18n.LocaleService;
 import org.seedstack.i18n.internal.domain.model.locale.Locale;
 import org.seedstack.i18n.internal.domain.model.locale.LocaleFactory;
 import org.seedstack.i18n.internal.domain.model.locale.LocaleRepository;
+import org.seedstack.i18n.internal.infrastructure.jpa.LocaleSnapshot;
+import org.seedstack.i18n.internal.infrastructure.jpa.LocaleSnapshotCache;
 import org.seedstack.jpa.JpaUnit;
 import org.seedstack.seed.transaction.Transactional;
 
 /**
- * Locale service implementation.
+ * Locale service implementation. It is a singleton so the closest locale resolutions are shared
+ * by all its clients. Transactions are only opened by the methods accessing the repository.
  */
-@JpaUnit("seed-i18n-domain")
-@Transactional
+@Singleton
 class ICULocaleService implements LocaleService {
 
     private static final String LOCALE_MUST_NOT_BE_NULL = "locale must not be null";
 
     private LocaleRepository localeRepository;
     private LocaleFactory localeFactory;
+    private LocaleSnapshotCache localeSnapshotCache;
+    private final AbstractCache.StatsCounter closestLocaleStats = new AbstractCache.SimpleStatsCounter();
+    private volatile ClosestLocaleMatcher closestLocaleMatcher;
 
     @Inject
-    public ICULocaleService(LocaleRepository localeRepository, LocaleFactory localeFactory) {
+    public ICULocaleService(LocaleRepository localeRepository, LocaleFactory localeFactory,
+            LocaleSnapshotCache localeSnapshotCache) {
         this.localeRepository = localeRepository;
         this.localeFactory = localeFactory;
+        this.localeSnapshotCache = localeSnapshotCache;
     }
 
+    @JpaUnit("seed-i18n-domain")
+    @Transactional
     @Override
     public boolean isAvailable(String localeCode) {
         return localeCode != null && localeRepository.contains(localeCode);
     }
 
+    @JpaUnit("seed-i18n-domain")
+    @Transactional
     @Override
     public Set<String> getAvailableLocales() {
         Set<String> result = new HashSet<>();
@@ -62,6 +74,8 @@ class ICULocaleService implements LocaleService {
         return supportedLocales;
     }
 
+    @JpaUnit("seed-i18n-domain")
+    @Transactional
     @Override
     public String getDefaultLocale() {
         Locale defaultLocale = localeRepository.getDefaultLocale();
@@ -72,11 +86,15 @@ class ICULocaleService implements LocaleService {
         }
     }
 
+    @JpaUnit("seed-i18n-domain")
+    @Transactional
     @Override
     public void changeDefaultLocaleTo(String locale) {
         localeRepository.changeDefaultLocaleTo(locale);
     }
 
+    @JpaUnit("seed-i18n-domain")
+    @Transactional
     @Override
     public void addLocale(String locale) {
         checkIsNotEmpty(locale);
@@ -92,6 +110,8 @@ class ICULocaleService implements LocaleService {
         }
     }
 
+    @JpaUnit("seed-i18n-domain")
+    @Transactional
     @Override
     public void deleteLocale(String locale) {
         checkIsNotEmpty(locale);
@@ -100,37 +120,36 @@ class ICULocaleService implements LocaleService {
 
     @Override
     public String getClosestLocale(String locale) {
-        ULocale closestULocale = getClosestULocale(locale);
-        if (closestULocale != null) {
-            return closestULocale.toLanguageTag();
-        } else {
-            return null;
-        }
+        return getClosestLocaleMatcher().getClosestLocale(locale);
     }
 
-    private ULocale getClosestULocale(String locale) {
-        if (isAvailable(locale)) {
-            return new ULocale(locale);
+    private ClosestLocaleMatcher getClosestLocaleMatcher() {
+        LocaleSnapshot localeSnapshot = localeSnapshotCache.get();
+        ClosestLocaleMatcher matcher = closestLocaleMatcher;
+        if (matcher == null || !matcher.isBuiltFrom(localeSnapshot)) {
+            // The matcher is rebuilt only when the available locales or the default locale change
+            matcher = new ClosestLocaleMatcher(localeSnapshot, closestLocaleStats);
+            closestLocaleMatcher = matcher;
         }
+        return matcher;
+    }
 
-        String defaultLocale = getDefaultLocale();
-        LocalePriorityList.Builder builder = null;
-        if (defaultLocale != null) {
-            builder = LocalePriorityList.add(defaultLocale);
-        }
-        for (String availableLocale : getAvailableLocales()) {
-            if (defaultLocale == null || !defaultLocale.equals(availableLocale)) {
-                if (builder == null) {
-                    builder = LocalePriorityList.add(availableLocale);
-                }
-                builder.add(availableLocale);
-            }
-        }
-        if (builder != null) {
-            LocaleMatcher localeMatcher = new LocaleMatcher(builder.build());
-            return localeMatcher.getBestMatch(locale);
-        } else {
-            return null;
-        }
+    /**
+     * Returns the hit and miss counts of the memoized closest locales, across the successive matchers.
+     *
+     * @return the statistics
+     */
+    CacheStats getClosestLocaleStats() {
+        return closestLocaleStats.snapshot();
+    }
+
+    /**
+     * Returns the number of memoized closest locales.
+     *
+     * @return the number of entries
+     */
+    long getClosestLocaleCount() {
+        ClosestLocaleMatcher matcher = closestLocaleMatcher;
+        return matcher != null ? matcher.size() : 0;
     }
 }
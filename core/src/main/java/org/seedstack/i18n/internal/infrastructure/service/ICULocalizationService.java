@@ -9,37 +9,46 @@ package org.seedstack.i18n.internal.infrastructure.service;
 
 import com.google.common.base.Strings;
 import com.ibm.icu.text.DateFormat;
-import com.ibm.icu.text.MessageFormat;
 import com.ibm.icu.text.NumberFormat;
 import com.ibm.icu.util.Currency;
 import com.ibm.icu.util.CurrencyAmount;
-import com.ibm.icu.util.TimeZone;
 import com.ibm.icu.util.ULocale;
 import org.seedstack.i18n.LocaleService;
 import org.seedstack.i18n.LocalizationService;
 import org.seedstack.i18n.internal.domain.service.TranslationService;
-import org.seedstack.jpa.JpaUnit;
-import org.seedstack.seed.transaction.Transactional;
+import org.seedstack.i18n.internal.infrastructure.jpa.TranslationSnapshotCache;
 
 import javax.inject.Inject;
+import java.io.IOException;
+import java.text.FieldPosition;
 import java.text.ParseException;
+import java.util.Collection;
 import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.Optional;
 
 /**
- * Localization service implementation based on ICU.
+ * Localization service implementation based on ICU. Translations, locales and formatters are served
+ * from in-memory caches, so this service doesn't open any transaction by itself.
  */
-@JpaUnit("seed-i18n-domain")
-@Transactional
 class ICULocalizationService implements LocalizationService {
 
     private final LocaleService localeService;
     private final TranslationService translationService;
+    private final TranslationSnapshotCache translationSnapshotCache;
+    private final MessageFormatCache messageFormatCache;
+    private final FormatterCache formatterCache;
 
     @Inject
-    ICULocalizationService(LocaleService localeService, TranslationService translationService) {
+    ICULocalizationService(LocaleService localeService, TranslationService translationService,
+            TranslationSnapshotCache translationSnapshotCache, MessageFormatCache messageFormatCache,
+            FormatterCache formatterCache) {
         this.localeService = localeService;
         this.translationService = translationService;
+        this.translationSnapshotCache = translationSnapshotCache;
+        this.messageFormatCache = messageFormatCache;
+        this.formatterCache = formatterCache;
     }
 
     @Override
@@ -51,17 +60,80 @@ class ICULocalizationService implements LocalizationService {
     public String localize(String locale, String keyName, Object... args) {
         Optional<String> translation = translationService.getTranslationWithFallback(locale, keyName);
         if (translation.isPresent()) {
-            return formatTranslation(locale, translation.get(), args);
+            return formatTranslation(locale, keyName, translation.get(), args);
         } else {
-            return '[' + keyName + ']';
+            return getPlaceholder(keyName);
         }
     }
 
-    private String formatTranslation(String locale, String translation, Object[] args) {
+    @Override
+    public void localizeTo(Appendable appendable, String locale, String key) throws IOException {
+        localizeTo(appendable, locale, key, (Object[]) null);
+    }
+
+    @Override
+    public void localizeTo(Appendable appendable, String locale, String keyName, Object... args) throws IOException {
+        Optional<String> translation = translationService.getTranslationWithFallback(locale, keyName);
+        if (!translation.isPresent()) {
+            String missingKeyPlaceholder = translationSnapshotCache.getMissingKeyPlaceholder(keyName);
+            if (missingKeyPlaceholder != null) {
+                appendable.append(missingKeyPlaceholder);
+            } else {
+                appendable.append('[').append(keyName).append(']');
+            }
+        } else if (args == null || args.length == 0) {
+            appendable.append(translation.get());
+        } else {
+            messageFormatCache.formatTo(findClosestULocale(locale), keyName, translation.get(), args, appendable);
+        }
+    }
+
+    private String getPlaceholder(String keyName) {
+        // Missing keys share their placeholder, while keys without translation for the locale get a new one
+        String missingKeyPlaceholder = translationSnapshotCache.getMissingKeyPlaceholder(keyName);
+        return missingKeyPlaceholder != null ? missingKeyPlaceholder : '[' + keyName + ']';
+    }
+
+    @Override
+    public Map<String, String> localizeAll(String locale, Collection<String> keys) {
+        Map<String, String> translations = translationService.getTranslationsWithFallback(locale, keys);
+        Map<String, String> results = new LinkedHashMap<>();
+        for (String keyName : keys) {
+            String translation = translations.get(keyName);
+            results.put(keyName, translation != null ? translation : getPlaceholder(keyName));
+        }
+        return results;
+    }
+
+    @Override
+    public Map<String, String> localizeAll(String locale, Map<String, Object[]> keysWithArgs) {
+        Map<String, String> translations = translationService.getTranslationsWithFallback(locale,
+                keysWithArgs.keySet());
+        Map<String, String> results = new LinkedHashMap<>();
+        ULocale closestLocale = null;
+        for (Map.Entry<String, Object[]> keyWithArgs : keysWithArgs.entrySet()) {
+            String keyName = keyWithArgs.getKey();
+            Object[] args = keyWithArgs.getValue();
+            String translation = translations.get(keyName);
+            if (translation == null) {
+                results.put(keyName, getPlaceholder(keyName));
+            } else if (args == null || args.length == 0) {
+                results.put(keyName, translation);
+            } else {
+                if (closestLocale == null) {
+                    closestLocale = findClosestULocale(locale);
+                }
+                results.put(keyName, messageFormatCache.format(closestLocale, keyName, translation, args));
+            }
+        }
+        return results;
+    }
+
+    private String formatTranslation(String locale, String keyName, String translation, Object[] args) {
         if (args == null || args.length == 0) {
             return translation;
         } else {
-            return new MessageFormat(translation, findClosestULocale(locale)).format(args);
+            return messageFormatCache.format(findClosestULocale(locale), keyName, translation, args);
         }
     }
 
@@ -77,10 +149,7 @@ class ICULocalizationService implements LocalizationService {
     @Override
     public String formatDate(String locale, Date date, String skeleton, String timezone) {
         ULocale closestLocale = findClosestULocale(locale);
-        DateFormat formatter = DateFormat.getPatternInstance(skeleton, closestLocale);
-        if (!Strings.isNullOrEmpty(timezone)) {
-            formatter.setTimeZone(TimeZone.getTimeZone(timezone));
-        }
+        DateFormat formatter = formatterCache.getDateFormat(closestLocale, skeleton, timezone);
         return formatter.format(date);
     }
 
@@ -92,10 +161,7 @@ class ICULocalizationService implements LocalizationService {
     @Override
     public Date parseDate(String locale, String value, String skeleton, String timezone) throws ParseException {
         ULocale closestLocale = findClosestULocale(locale);
-        DateFormat formatter = DateFormat.getPatternInstance(skeleton, closestLocale);
-        if (!Strings.isNullOrEmpty(timezone)) {
-            formatter.setTimeZone(TimeZone.getTimeZone(timezone));
-        }
+        DateFormat formatter = formatterCache.getDateFormat(closestLocale, skeleton, timezone);
         return formatter.parse(value);
     }
 
@@ -114,8 +180,7 @@ class ICULocalizationService implements LocalizationService {
             currency = Currency.getInstance(currencyCode);
         }
         CurrencyAmount ca = new CurrencyAmount(amount, currency);
-        NumberFormat nf = NumberFormat.getCurrencyInstance(closestLocale);
-        nf.setCurrency(currency);
+        NumberFormat nf = formatterCache.getCurrencyFormat(closestLocale, currency);
         return nf.format(ca);
     }
 
@@ -133,22 +198,38 @@ class ICULocalizationService implements LocalizationService {
         } else {
             currency = Currency.getInstance(currencyCode);
         }
-        NumberFormat nf = NumberFormat.getCurrencyInstance(closestLocale);
-        nf.setCurrency(currency);
+        NumberFormat nf = formatterCache.getCurrencyFormat(closestLocale, currency);
         return nf.parse(value);
     }
 
     @Override
     public String formatNumber(String locale, Number number) {
         ULocale closestLocale = findClosestULocale(locale);
-        NumberFormat nf = NumberFormat.getInstance(closestLocale);
+        NumberFormat nf = formatterCache.getNumberFormat(closestLocale);
         return nf.format(number);
     }
 
+    @Override
+    public void formatNumberTo(Appendable appendable, String locale, Number number) throws IOException {
+        ULocale closestLocale = findClosestULocale(locale);
+        NumberFormat nf = formatterCache.getNumberFormat(closestLocale);
+        if (appendable instanceof StringBuffer) {
+            nf.format(number, (StringBuffer) appendable, new FieldPosition(0));
+            return;
+        }
+        StringBuffer buffer = FormatBuffer.acquire();
+        try {
+            nf.format(number, buffer, new FieldPosition(0));
+            appendable.append(buffer);
+        } finally {
+            FormatBuffer.release(buffer);
+        }
+    }
+
     @Override
     public Number parseNumber(String locale, String value) throws ParseException {
         ULocale closestLocale = findClosestULocale(locale);
-        NumberFormat nf = NumberFormat.getInstance(closestLocale);
+        NumberFormat nf = formatterCache.getNumberFormat(closestLocale);
         return nf.parse(value);
     }
 }
@@ -0,0 +1,173 @@
+/*
+ * Copyright © 2013-2020, The SeedStack authors <http://seedstack.org>
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.seedstack.i18n.internal.infrastructure.service;
+
+import com.google.common.base.Supplier;
+import com.google.common.base.Suppliers;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.ibm.icu.text.MessageFormat;
+import com.ibm.icu.util.ULocale;
+import java.io.IOException;
+import java.text.FieldPosition;
+import javax.inject.Singleton;
+import org.seedstack.i18n.I18nConfig;
+import org.seedstack.seed.Configuration;
+
+/**
+ * Bounded cache of compiled ICU message formats, indexed by resolved locale and key.
+ * <p>
+ * Each entry remembers the pattern it was compiled from. When the translation of the key changes,
+ * the entry no longer matches and is compiled again. Patterns which only contain positional arguments
+ * are compiled into a {@link SimpleMessageTemplate} and formatted without ICU when their arguments
+ * allow it. As ICU formats are not thread-safe, cached formats are only used as prototypes and cloned
+ * for each formatting.
+ * </p>
+ */
+@Singleton
+class MessageFormatCache {
+    @Configuration
+    private I18nConfig.CacheConfig cacheConfig = new I18nConfig.CacheConfig();
+    private final Supplier<Cache<MessageKey, CompiledMessage>> cache = Suppliers.memoize(
+            () -> CacheBuilder.newBuilder()
+                    .maximumSize(cacheConfig.getMessageFormatMaxSize())
+                    .concurrencyLevel(cacheConfig.getConcurrencyLevel())
+                    .recordStats()
+                    .build());
+
+    /**
+     * Formats the given pattern, reusing the compiled format of the key if the pattern didn't change.
+     *
+     * @param locale  the resolved locale
+     * @param keyName the key of the translation
+     * @param pattern the translation
+     * @param args    the arguments of the message
+     * @return the formatted message
+     */
+    String format(ULocale locale, String keyName, String pattern, Object[] args) {
+        CompiledMessage compiledMessage = getCompiledMessage(locale, keyName, pattern);
+        if (compiledMessage.simpleTemplate != null && compiledMessage.simpleTemplate.canFormat(args)) {
+            return compiledMessage.simpleTemplate.format(args);
+        }
+        return compiledMessage.getMessageFormat().format(args);
+    }
+
+    /**
+     * Formats the given pattern into an appendable, reusing the compiled format of the key if the pattern
+     * didn't change. Simple templates are written directly, while ICU formats into a buffer of the current
+     * thread which is then copied to the appendable, unless it is a {@link StringBuffer} itself.
+     *
+     * @param locale     the resolved locale
+     * @param keyName    the key of the translation
+     * @param pattern    the translation
+     * @param args       the arguments of the message
+     * @param appendable the appendable receiving the formatted message
+     * @throws IOException if the appendable fails
+     */
+    void formatTo(ULocale locale, String keyName, String pattern, Object[] args, Appendable appendable)
+            throws IOException {
+        CompiledMessage compiledMessage = getCompiledMessage(locale, keyName, pattern);
+        if (compiledMessage.simpleTemplate != null && compiledMessage.simpleTemplate.canFormat(args)) {
+            compiledMessage.simpleTemplate.formatTo(args, appendable);
+        } else if (appendable instanceof StringBuffer) {
+            compiledMessage.getMessageFormat().format(args, (StringBuffer) appendable, new FieldPosition(0));
+        } else {
+            StringBuffer buffer = FormatBuffer.acquire();
+            try {
+                compiledMessage.getMessageFormat().format(args, buffer, new FieldPosition(0));
+                appendable.append(buffer);
+            } finally {
+                FormatBuffer.release(buffer);
+            }
+        }
+    }
+
+    /**
+     * Returns the hit and miss counts of the cache.
+     *
+     * @return the cache statistics
+     */
+    CacheStats getStats() {
+        return cache.get().stats();
+    }
+
+    /**
+     * Returns the approximate number of compiled messages.
+     *
+     * @return the number of entries
+     */
+    long size() {
+        return cache.get().size();
+    }
+
+    private CompiledMessage getCompiledMessage(ULocale locale, String keyName, String pattern) {
+        MessageKey messageKey = new MessageKey(locale, keyName);
+        CompiledMessage compiledMessage = cache.get().getIfPresent(messageKey);
+        if (compiledMessage == null || !compiledMessage.pattern.equals(pattern)) {
+            compiledMessage = new CompiledMessage(locale, pattern);
+            cache.get().put(messageKey, compiledMessage);
+        }
+        return compiledMessage;
+    }
+
+    private static class MessageKey {
+        private final ULocale locale;
+        private final String keyName;
+        private final int hashCode;
+
+        private MessageKey(ULocale locale, String keyName) {
+            this.locale = locale;
+            this.keyName = keyName;
+            this.hashCode = 31 * locale.hashCode() + keyName.hashCode();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            MessageKey that = (MessageKey) o;
+            return locale.equals(that.locale) && keyName.equals(that.keyName);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+
+    private static class CompiledMessage {
+        private final ULocale locale;
+        private final String pattern;
+        private final SimpleMessageTemplate simpleTemplate;
+        private volatile MessageFormat messageFormat;
+
+        private CompiledMessage(ULocale locale, String pattern) {
+            this.locale = locale;
+            this.pattern = pattern;
+            this.simpleTemplate = SimpleMessageTemplate.compile(pattern);
+            if (simpleTemplate == null) {
+                this.messageFormat = new MessageFormat(pattern, locale);
+            }
+        }
+
+        private MessageFormat getMessageFormat() {
+            MessageFormat current = messageFormat;
+            if (current == null) {
+                // Simple templates only need ICU for arguments which are not character sequences
+                current = new MessageFormat(pattern, locale);
+                messageFormat = current;
+            }
+            return (MessageFormat) current.clone();
+        }
+    }
+}
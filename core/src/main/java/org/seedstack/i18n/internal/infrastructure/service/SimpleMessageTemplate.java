@@ -0,0 +1,159 @@
+/*
+ * Copyright © 2013-2020, The SeedStack authors <http://seedstack.org>
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.seedstack.i18n.internal.infrastructure.service;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Precompiled form of a message which only contains positional arguments like "Hello {0}, you have {1}
+ * messages", without quoted text, argument type or sub-message.
+ * <p>
+ * The message is split into literals and argument indexes, so formatting is a simple concatenation.
+ * It gives the same result as ICU as long as the arguments are character sequences: other arguments,
+ * like numbers or dates, are formatted according to the locale by ICU, so {@link #canFormat(Object[])}
+ * must be checked first.
+ * </p>
+ */
+final class SimpleMessageTemplate {
+    private static final int MAX_ARGUMENT_INDEX_DIGITS = 4;
+    private final String[] literals;
+    private final int[] argumentIndexes;
+    private final int literalsLength;
+
+    private SimpleMessageTemplate(String[] literals, int[] argumentIndexes) {
+        this.literals = literals;
+        this.argumentIndexes = argumentIndexes;
+        int length = 0;
+        for (String literal : literals) {
+            length += literal.length();
+        }
+        this.literalsLength = length;
+    }
+
+    /**
+     * Compiles the given pattern if it is a simple template.
+     *
+     * @param pattern the message pattern
+     * @return the compiled template or null if the pattern requires ICU
+     */
+    static SimpleMessageTemplate compile(String pattern) {
+        List<String> literals = new ArrayList<>();
+        List<Integer> argumentIndexes = new ArrayList<>();
+        int literalStart = 0;
+        int i = 0;
+        while (i < pattern.length()) {
+            char c = pattern.charAt(i);
+            if (c == '}' || c == '\'' && startsQuoting(pattern, i)) {
+                // Quoting and unbalanced braces have a special meaning in ICU
+                return null;
+            } else if (c == '{') {
+                int argumentEnd = pattern.indexOf('}', i);
+                int argumentIndex = parseArgumentIndex(pattern, i + 1, argumentEnd);
+                if (argumentIndex < 0) {
+                    return null;
+                }
+                literals.add(pattern.substring(literalStart, i));
+                argumentIndexes.add(argumentIndex);
+                i = argumentEnd + 1;
+                literalStart = i;
+            } else {
+                i++;
+            }
+        }
+        literals.add(pattern.substring(literalStart));
+
+        int[] indexes = new int[argumentIndexes.size()];
+        for (int j = 0; j < indexes.length; j++) {
+            indexes[j] = argumentIndexes.get(j);
+        }
+        return new SimpleMessageTemplate(literals.toArray(new String[0]), indexes);
+    }
+
+    private static boolean startsQuoting(String pattern, int apostropheIndex) {
+        // A lone apostrophe is a literal, unless it is followed by a syntax character (ICU DOUBLE_OPTIONAL mode)
+        if (apostropheIndex + 1 >= pattern.length()) {
+            return false;
+        }
+        char next = pattern.charAt(apostropheIndex + 1);
+        return next == '\'' || next == '{' || next == '}' || next == '|' || next == '#';
+    }
+
+    private static int parseArgumentIndex(String pattern, int start, int end) {
+        if (end < 0 || end == start || end - start > MAX_ARGUMENT_INDEX_DIGITS) {
+            return -1;
+        }
+        int argumentIndex = 0;
+        for (int i = start; i < end; i++) {
+            char c = pattern.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            argumentIndex = argumentIndex * 10 + (c - '0');
+        }
+        return argumentIndex;
+    }
+
+    /**
+     * Indicates whether the template can format the given arguments, i.e. whether each referenced
+     * argument is present and is a character sequence.
+     *
+     * @param args the arguments of the message
+     * @return true if the template can format the arguments, false if ICU is required
+     */
+    boolean canFormat(Object[] args) {
+        for (int argumentIndex : argumentIndexes) {
+            if (argumentIndex >= args.length || !(args[argumentIndex] instanceof CharSequence)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Formats the message.
+     *
+     * @param args the arguments of the message
+     * @return the formatted message
+     */
+    String format(Object[] args) {
+        StringBuilder sb = new StringBuilder(expectedLength(args));
+        for (int i = 0; i < argumentIndexes.length; i++) {
+            sb.append(literals[i]).append((CharSequence) args[argumentIndexes[i]]);
+        }
+        return sb.append(literals[argumentIndexes.length]).toString();
+    }
+
+    /**
+     * Formats the message into an appendable, without intermediate copy.
+     *
+     * @param args       the arguments of the message
+     * @param appendable the appendable receiving the formatted message
+     * @throws IOException if the appendable fails
+     */
+    void formatTo(Object[] args, Appendable appendable) throws IOException {
+        if (appendable instanceof StringBuilder) {
+            ((StringBuilder) appendable).ensureCapacity(((StringBuilder) appendable).length() + expectedLength(args));
+        } else if (appendable instanceof StringBuffer) {
+            ((StringBuffer) appendable).ensureCapacity(((StringBuffer) appendable).length() + expectedLength(args));
+        }
+        for (int i = 0; i < argumentIndexes.length; i++) {
+            appendable.append(literals[i]).append((CharSequence) args[argumentIndexes[i]]);
+        }
+        appendable.append(literals[argumentIndexes.length]);
+    }
+
+    private int expectedLength(Object[] args) {
+        int length = literalsLength;
+        for (int argumentIndex : argumentIndexes) {
+            length += ((CharSequence) args[argumentIndex]).length();
+        }
+        return length;
+    }
+}
@@ -7,83 +7,118 @@
  */
 package org.seedstack.i18n.internal.infrastructure.service;
 
-import com.google.common.base.Strings;
-import com.ibm.icu.util.ULocale;
+import com.google.common.cache.LoadingCache;
 import org.seedstack.i18n.I18nConfig;
 import org.seedstack.i18n.LocaleService;
 import org.seedstack.i18n.internal.domain.model.key.Key;
 import org.seedstack.i18n.internal.domain.model.key.KeyRepository;
 import org.seedstack.i18n.internal.domain.model.key.Translation;
 import org.seedstack.i18n.internal.domain.service.TranslationService;
+import org.seedstack.i18n.internal.infrastructure.jpa.TranslationBundle;
+import org.seedstack.i18n.internal.infrastructure.jpa.TranslationSnapshot;
+import org.seedstack.i18n.internal.infrastructure.jpa.TranslationSnapshotCache;
 import org.seedstack.jpa.JpaUnit;
 import org.seedstack.seed.Configuration;
 import org.seedstack.seed.transaction.Transactional;
 
 import javax.inject.Inject;
+import javax.inject.Provider;
 import java.util.*;
 
 /**
+ * Translation service implementation. Single translation lookups are served from the in-memory
+ * {@link TranslationSnapshotCache} and don't open any transaction. Locale fallback chains are
+ * precomputed by the {@link FallbackChainCache}. Whole locales are served from the per-locale cache of
+ * {@link TranslationBundle}s.
+ *
  * @author pierre.thirouin@ext.mpsa.com
  */
-@JpaUnit("seed-i18n-domain")
-@Transactional
 class TranslationServiceImpl implements TranslationService {
     private static final String IS_EMPTY_ERROR_MESSAGE = "The %s can't be null or empty";
     private final KeyRepository keyRepository;
     private final LocaleService localeService;
+    private final TranslationSnapshotCache translationSnapshotCache;
+    private final FallbackChainCache fallbackChainCache;
+    private final Provider<LoadingCache<String, TranslationBundle>> translationBundles;
     @Configuration
     private I18nConfig i18nConfig = new I18nConfig();
 
     @Inject
-    public TranslationServiceImpl(KeyRepository keyRepository, LocaleService localeService) {
+    public TranslationServiceImpl(KeyRepository keyRepository, LocaleService localeService,
+            TranslationSnapshotCache translationSnapshotCache, FallbackChainCache fallbackChainCache,
+            Provider<LoadingCache<String, TranslationBundle>> translationBundles) {
         this.keyRepository = keyRepository;
         this.localeService = localeService;
+        this.translationSnapshotCache = translationSnapshotCache;
+        this.fallbackChainCache = fallbackChainCache;
+        // The cache is loaded by this service, so it is only resolved on use
+        this.translationBundles = translationBundles;
     }
 
     @Override
     public Optional<String> getTranslationWithFallback(String locale, String keyName) {
-        return keyRepository.get(keyName).flatMap(k -> getTranslationWithFallback(locale, k));
+        return Optional.ofNullable(translationSnapshotCache.get().getTranslation(keyName, getFallbackChain(locale)));
     }
 
-    private Optional<String> getTranslationWithFallback(String locale, Key key) {
-        for (String parentLocale : getParentLocalesFor(new ULocale(locale))) {
-            if (key.isTranslated(parentLocale)) {
-                return Optional.of(key.getTranslation(parentLocale).getValue());
+    @Override
+    public Map<String, String> getTranslationsWithFallback(String locale, Collection<String> keyNames) {
+        TranslationSnapshot translationSnapshot = translationSnapshotCache.get();
+        String[] fallbackChain = getFallbackChain(locale);
+        Map<String, String> translations = new HashMap<>();
+        for (String keyName : keyNames) {
+            String translation = translationSnapshot.getTranslation(keyName, fallbackChain);
+            if (translation != null) {
+                translations.put(keyName, translation);
             }
         }
+        return translations;
+    }
+
+    private String[] getFallbackChain(String locale) {
+        return fallbackChainCache.getFallbackChain(locale, i18nConfig.isTranslationFallback());
+    }
 
-        if (i18nConfig.isTranslationFallback()) {
-            String defaultLocale = localeService.getDefaultLocale();
-            if (key.isTranslated(defaultLocale)) {
-                return Optional.of(key.getTranslation(defaultLocale).getValue());
+    private String getTranslationWithFallback(String[] fallbackChain, Map<String, String> translations) {
+        for (String fallbackLocale : fallbackChain) {
+            String translation = translations.get(fallbackLocale);
+            if (translation != null) {
+                return translation;
             }
         }
-
-        return Optional.empty();
+        return null;
     }
 
-    private List<String> getParentLocalesFor(ULocale locale) {
-        List<String> locales = new ArrayList<>();
-        ULocale current = locale;
-        while (current != null && !Strings.isNullOrEmpty(current.toString())) {
-            locales.add(current.toLanguageTag());
-            current = current.getFallback();
+    @Override
+    public Map<String, String> getTranslationsForLocale(String locale) {
+        if (translationSnapshotCache.hasUncommittedChanges()) {
+            // The cache only holds committed translations, while the transaction must see its own writes
+            return Collections.unmodifiableMap(loadTranslationsForLocale(locale));
         }
-        return locales;
+        return translationBundles.get().getUnchecked(locale).getContent().getTranslations();
     }
 
+    @JpaUnit("seed-i18n-domain")
+    @Transactional
     @Override
-    public Map<String, String> getTranslationsForLocale(String locale) {
-        Map<String, String> translations = new HashMap<>();
-        for (Key key : keyRepository.loadAll()) {
-            Optional<String> translation = getTranslationWithFallback(locale, key);
-            if (translation.isPresent() || !i18nConfig.isAllowMissingTranslations()) {
-                translations.put(key.getId(), translation.orElse("[" + key.getId() + "]"));
+    public Map<String, String> loadTranslationsForLocale(String locale) {
+        String[] fallbackChain = getFallbackChain(locale);
+        Map<String, Map<String, String>> translationsByKey = keyRepository.loadTranslations(
+                Arrays.asList(fallbackChain));
+        Map<String, String> translations = new HashMap<>(translationsByKey.size() * 4 / 3 + 1);
+        for (Map.Entry<String, Map<String, String>> keyTranslations : translationsByKey.entrySet()) {
+            String keyName = keyTranslations.getKey();
+            String translation = getTranslationWithFallback(fallbackChain, keyTranslations.getValue());
+            if (translation != null) {
+                translations.put(keyName, translation);
+            } else if (!i18nConfig.isAllowMissingTranslations()) {
+                translations.put(keyName, "[" + keyName + "]");
             }
         }
         return translations;
     }
 
+    @JpaUnit("seed-i18n-domain")
+    @Transactional
     @Override
     public void translate(String keyName, String locale, String translation) {
         if (isEmpty(keyName)) {
@@ -100,6 +135,7 @@ class TranslationServiceImpl implements TranslationService {
         } else {
             updateTranslation(locale, translation, key);
         }
+        keyRepository.update(key);
     }
 
     private boolean isEmpty(String value) {
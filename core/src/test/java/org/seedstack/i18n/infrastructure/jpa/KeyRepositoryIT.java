@@ -8,10 +8,13 @@
 package org.seedstack.i18n.infrastructure.jpa;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
 
+import com.google.common.collect.Lists;
 import com.google.inject.Inject;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Random;
 import java.util.UUID;
 import org.junit.After;
@@ -128,6 +131,20 @@ public class KeyRepositoryIT {
         assertThat(underTest.loadAll()).hasSize(expectedSize);
     }
 
+    @JpaUnit(Units.I18N)
+    @Transactional
+    @Test
+    public void testLoadTranslations() {
+        underTest.add(createKey(keyId));
+        underTest.add(factory.createKey("untranslated"));
+
+        Map<String, Map<String, String>> translations = underTest.loadTranslations(Lists.newArrayList("fr", "de"));
+
+        assertThat(translations).hasSize(2);
+        assertThat(translations.get(keyId)).containsOnly(entry("fr", "traduction"));
+        assertThat(translations.get("untranslated")).isEmpty();
+    }
+
     @JpaUnit(Units.I18N)
     @Transactional
     @Test
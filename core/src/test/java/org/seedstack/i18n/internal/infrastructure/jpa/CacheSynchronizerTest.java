@@ -0,0 +1,144 @@
+/*
+ * Copyright © 2013-2020, The SeedStack authors <http://seedstack.org>
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.seedstack.i18n.internal.infrastructure.jpa;
+
+import static org.mockito.Mockito.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+import java.util.Collections;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import javax.persistence.EntityManager;
+import org.assertj.core.api.Assertions;
+import org.hibernate.Session;
+import org.hibernate.SessionEventListener;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.seedstack.i18n.I18nConfig;
+import org.seedstack.i18n.internal.domain.model.key.Key;
+import org.seedstack.i18n.internal.domain.model.key.KeyRepository;
+import org.seedstack.i18n.internal.domain.model.locale.LocaleRepository;
+
+public class CacheSynchronizerTest {
+    private static final String FR = "fr";
+    private static final String KEY1 = "key1";
+    private static final String KEY2 = "key2";
+
+    private EntityManager entityManager;
+    private Session session;
+    private TranslationSnapshotCache translationSnapshotCache;
+    private I18nCacheUpdater i18nCacheUpdater;
+    private I18nConfig i18nConfig;
+    private CacheSynchronizer underTest;
+
+    @Before
+    public void before() {
+        entityManager = mock(EntityManager.class);
+        session = mock(Session.class);
+        when(entityManager.getDelegate()).thenReturn(session);
+        KeyRepository keyRepository = mock(KeyRepository.class);
+        when(keyRepository.loadAll()).thenReturn(Lists.newArrayList(key(KEY1, "un")));
+        translationSnapshotCache = new TranslationSnapshotCache(keyRepository);
+        i18nCacheUpdater = mock(I18nCacheUpdater.class);
+        i18nConfig = new I18nConfig();
+        underTest = new CacheSynchronizer(translationSnapshotCache,
+                new LocaleSnapshotCache(mock(LocaleRepository.class)), i18nCacheUpdater, new ChangeLog(i18nConfig));
+    }
+
+    @Test
+    public void changes_are_applied_immediately_outside_transaction() {
+        underTest.keyUpdated(entityManager, key(KEY2, "deux"));
+
+        Assertions.assertThat(translationSnapshotCache.get().getTranslation(KEY2, FR)).isEqualTo("deux");
+        verify(i18nCacheUpdater).keysUpdated(Collections.singleton(KEY2));
+    }
+
+    @Test
+    public void changes_are_applied_once_after_commit() throws Exception {
+        when(entityManager.isJoinedToTransaction()).thenReturn(true);
+
+        underTest.keyUpdated(entityManager, key(KEY2, "deux"));
+        underTest.keyUpdated(entityManager, key(KEY2, "zwei"));
+        underTest.keyRemoved(entityManager, KEY1);
+
+        Assertions.assertThat(translationSnapshotCache.get().getTranslation(KEY2, FR)).isEqualTo("zwei");
+        Assertions.assertThat(getFromAnotherThread().containsKey(KEY2)).isFalse();
+        verify(i18nCacheUpdater, never()).keysUpdated(any());
+
+        completionListener().transactionCompletion(true);
+
+        Assertions.assertThat(getFromAnotherThread().getTranslation(KEY2, FR)).isEqualTo("zwei");
+
+        Assertions.assertThat(translationSnapshotCache.get().getTranslation(KEY2, FR)).isEqualTo("zwei");
+        Assertions.assertThat(translationSnapshotCache.get().containsKey(KEY1)).isFalse();
+        verify(i18nCacheUpdater, times(1)).keysUpdated(Sets.newHashSet(KEY2));
+        verify(i18nCacheUpdater, times(1)).keysRemoved(Sets.newHashSet(KEY1));
+    }
+
+    @Test
+    public void changes_are_discarded_on_rollback() {
+        when(entityManager.isJoinedToTransaction()).thenReturn(true);
+
+        underTest.keyUpdated(entityManager, key(KEY2, "deux"));
+        completionListener().transactionCompletion(false);
+
+        Assertions.assertThat(translationSnapshotCache.get().containsKey(KEY2)).isFalse();
+        verify(i18nCacheUpdater, never()).keysUpdated(any());
+    }
+
+    @Test
+    public void changes_are_logged_once_per_transaction() {
+        i18nConfig.changeLogConfig().setEnabled(true);
+        when(entityManager.isJoinedToTransaction()).thenReturn(true);
+
+        underTest.keyUpdated(entityManager, key(KEY2, "deux"));
+        underTest.keyUpdated(entityManager, key(KEY2, "zwei"));
+        underTest.keyRemoved(entityManager, KEY1);
+
+        ArgumentCaptor<ChangeLogEntry> entries = ArgumentCaptor.forClass(ChangeLogEntry.class);
+        verify(entityManager, times(2)).persist(entries.capture());
+        Assertions.assertThat(entries.getAllValues()).extracting(ChangeLogEntry::getKeyId).containsExactly(KEY2, KEY1);
+    }
+
+    @Test
+    public void changes_are_not_logged_when_disabled() {
+        when(entityManager.isJoinedToTransaction()).thenReturn(true);
+
+        underTest.keyUpdated(entityManager, key(KEY2, "deux"));
+
+        verify(entityManager, never()).persist(any());
+    }
+
+    private TranslationSnapshot getFromAnotherThread() throws Exception {
+        ExecutorService executorService = Executors.newSingleThreadExecutor();
+        try {
+            return executorService.submit(() -> translationSnapshotCache.get()).get();
+        } finally {
+            executorService.shutdown();
+        }
+    }
+
+    private SessionEventListener completionListener() {
+        ArgumentCaptor<SessionEventListener> listener = ArgumentCaptor.forClass(SessionEventListener.class);
+        verify(session).addEventListeners(listener.capture());
+        return listener.getValue();
+    }
+
+    private Key key(String name, String translation) {
+        Key key = new Key(name);
+        key.addTranslation(FR, translation);
+        return key;
+    }
+}
@@ -0,0 +1,263 @@
+/*
+ * Copyright © 2013-2020, The SeedStack authors <http://seedstack.org>
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.seedstack.i18n.internal.infrastructure.jpa;
+
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import javax.inject.Inject;
+import javax.persistence.EntityManager;
+import org.assertj.core.api.Assertions;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.seedstack.i18n.I18nConfig;
+import org.seedstack.i18n.LocaleService;
+import org.seedstack.i18n.LocalizationService;
+import org.seedstack.i18n.internal.domain.model.key.Key;
+import org.seedstack.i18n.internal.domain.model.key.KeyRepository;
+import org.seedstack.i18n.internal.domain.model.locale.LocaleRepository;
+import org.seedstack.i18n.internal.domain.service.TranslationService;
+import org.seedstack.jpa.JpaUnit;
+import org.seedstack.seed.testing.ConfigurationProperty;
+import org.seedstack.seed.testing.junit4.SeedITRunner;
+import org.seedstack.seed.transaction.Transactional;
+
+@RunWith(SeedITRunner.class)
+@ConfigurationProperty(name = "i18n.changeLog.enabled", value = "true")
+// Polls are triggered by the tests
+@ConfigurationProperty(name = "i18n.changeLog.pollInterval", value = "3600000")
+public class ChangeLogPollerIT {
+    private static final String FR = "fr";
+    private static final String DE = "de";
+    private static final String OTHER_NODE = UUID.randomUUID().toString();
+
+    private String keyId;
+    @Inject
+    private LocalizationService localizationService;
+    @Inject
+    private LocaleService localeService;
+    @Inject
+    private KeyRepository keyRepository;
+    @Inject
+    private LocaleRepository localeRepository;
+    @Inject
+    private EntityManager entityManager;
+    @Inject
+    private ChangeLogPoller underTest;
+    private TranslationSnapshotCache secondNodeTranslations;
+    private LocaleSnapshotCache secondNodeLocales;
+    private LoadingCache<String, TranslationBundle> secondNodeBundles;
+    private ChangeLogPoller secondNodePoller;
+
+    @Before
+    @JpaUnit(Units.I18N)
+    @Transactional
+    public void before() {
+        if (!localeService.isAvailable(FR)) {
+            localeService.addLocale(FR);
+        }
+        localeService.changeDefaultLocaleTo(FR);
+        keyId = UUID.randomUUID().toString();
+        Key key = new Key(keyId);
+        key.addTranslation(FR, "avant");
+        keyRepository.add(key);
+        if (localeService.isAvailable(DE)) {
+            localeService.deleteLocale(DE);
+        }
+        startSecondNode();
+    }
+
+    private void startSecondNode() {
+        // Another node sharing the database, with its own change log and caches
+        I18nConfig i18nConfig = new I18nConfig();
+        i18nConfig.changeLogConfig().setEnabled(true);
+        secondNodeTranslations = new TranslationSnapshotCache(keyRepository);
+        secondNodeLocales = new LocaleSnapshotCache(localeRepository);
+        TranslationService translationService = mock(TranslationService.class);
+        when(translationService.getTranslationsWithFallback(anyString(), anyCollection())).thenAnswer(
+                invocation -> getSecondNodeTranslations(invocation.getArgument(0), invocation.getArgument(1)));
+        when(translationService.loadTranslationsForLocale(anyString())).thenAnswer(
+                invocation -> loadTranslations(invocation.getArgument(0)));
+        secondNodeBundles = CacheBuilder.newBuilder().build(CacheLoader.from(
+                locale -> new TranslationBundle(translationService.loadTranslationsForLocale(locale))));
+        I18nCacheUpdater i18nCacheUpdater = new I18nCacheUpdater(secondNodeBundles, translationService,
+                secondNodeLocales, new TranslationHistory(i18nConfig.cacheConfig()), new TranslationVersions());
+        ChangeLog changeLog = new ChangeLog(i18nConfig);
+        secondNodePoller = new ChangeLogPoller(i18nConfig, entityManager, keyRepository, changeLog,
+                new CacheSynchronizer(secondNodeTranslations, secondNodeLocales, i18nCacheUpdater, changeLog));
+        // The first poll only sets the watermark
+        secondNodePoller.poll();
+    }
+
+    private Map<String, String> getSecondNodeTranslations(String locale, Collection<String> keyIds) {
+        Map<String, String> translations = new HashMap<>();
+        for (String keyId : keyIds) {
+            String translation = secondNodeTranslations.get().getTranslation(keyId, locale);
+            if (translation != null) {
+                translations.put(keyId, translation);
+            }
+        }
+        return translations;
+    }
+
+    private Map<String, String> loadTranslations(String locale) {
+        Map<String, String> translations = new HashMap<>();
+        for (Map.Entry<String, Map<String, String>> keyTranslations : keyRepository
+                .loadTranslations(Collections.singleton(locale)).entrySet()) {
+            translations.put(keyTranslations.getKey(), keyTranslations.getValue().get(locale));
+        }
+        return translations;
+    }
+
+    @Test
+    public void changes_of_other_nodes_are_applied_when_polling() {
+        Assertions.assertThat(localizationService.localize(FR, keyId)).isEqualTo("avant");
+
+        updateFromOtherNode("après");
+        Assertions.assertThat(localizationService.localize(FR, keyId)).isEqualTo("avant");
+
+        underTest.poll();
+        Assertions.assertThat(localizationService.localize(FR, keyId)).isEqualTo("après");
+    }
+
+    @Test
+    public void removals_of_other_nodes_are_applied_when_polling() {
+        Assertions.assertThat(localizationService.localize(FR, keyId)).isEqualTo("avant");
+
+        removeFromOtherNode();
+        underTest.poll();
+
+        Assertions.assertThat(localizationService.localize(FR, keyId)).isEqualTo("[" + keyId + "]");
+    }
+
+    @Test
+    public void key_writes_are_applied_by_the_second_node() {
+        loadSecondNodeCaches();
+        Assertions.assertThat(secondNodeTranslations.get().getTranslation(keyId, FR)).isEqualTo("avant");
+
+        updateThroughRepository("après");
+        Assertions.assertThat(secondNodeBundles.getIfPresent(FR).getContent().getTranslations())
+                .containsEntry(keyId, "avant");
+
+        pollSecondNode();
+        Assertions.assertThat(secondNodeTranslations.get().getTranslation(keyId, FR)).isEqualTo("après");
+        // The loaded bundle is patched, not loaded again
+        Assertions.assertThat(secondNodeBundles.getIfPresent(FR).getContent().getTranslations())
+                .containsEntry(keyId, "après");
+
+        removeThroughRepository();
+        pollSecondNode();
+        Assertions.assertThat(secondNodeTranslations.get().getTranslation(keyId, FR)).isNull();
+        Assertions.assertThat(secondNodeBundles.getIfPresent(FR).getContent().getTranslations())
+                .doesNotContainKey(keyId);
+    }
+
+    @Test
+    public void locale_writes_are_applied_by_the_second_node() {
+        loadSecondNodeCaches();
+        Assertions.assertThat(secondNodeLocales.get().isAvailable(DE)).isFalse();
+
+        addLocaleThroughRepository(DE);
+        Assertions.assertThat(secondNodeLocales.get().isAvailable(DE)).isFalse();
+
+        pollSecondNode();
+        Assertions.assertThat(secondNodeBundles.getIfPresent(FR)).isNull();
+        Assertions.assertThat(loadSecondNodeLocales().isAvailable(DE)).isTrue();
+    }
+
+    @Test
+    public void own_writes_are_not_applied_again_when_polling() {
+        updateThroughRepository("après");
+        Assertions.assertThat(localizationService.localize(FR, keyId)).isEqualTo("après");
+
+        // The key is changed behind the caches, without change log entry
+        updateFromOtherNodeWithoutLog("avant");
+        underTest.poll();
+
+        // Applying the entry of this node would have read the key again
+        Assertions.assertThat(localizationService.localize(FR, keyId)).isEqualTo("après");
+    }
+
+    @JpaUnit(Units.I18N)
+    @Transactional
+    public void loadSecondNodeCaches() {
+        secondNodeTranslations.get();
+        secondNodeLocales.get();
+        secondNodeBundles.getUnchecked(FR);
+    }
+
+    @JpaUnit(Units.I18N)
+    @Transactional
+    public LocaleSnapshot loadSecondNodeLocales() {
+        return secondNodeLocales.get();
+    }
+
+    @JpaUnit(Units.I18N)
+    @Transactional
+    public void pollSecondNode() {
+        // The poller of the second node isn't managed, so it joins the transaction of the test
+        secondNodePoller.poll();
+    }
+
+    @JpaUnit(Units.I18N)
+    @Transactional
+    public void updateThroughRepository(String translation) {
+        Key key = keyRepository.get(keyId).orElseThrow(IllegalStateException::new);
+        key.addTranslation(FR, translation);
+        keyRepository.update(key);
+    }
+
+    @JpaUnit(Units.I18N)
+    @Transactional
+    public void removeThroughRepository() {
+        keyRepository.remove(keyId);
+    }
+
+    @JpaUnit(Units.I18N)
+    @Transactional
+    public void addLocaleThroughRepository(String locale) {
+        localeService.addLocale(locale);
+    }
+
+    @JpaUnit(Units.I18N)
+    @Transactional
+    public void updateFromOtherNodeWithoutLog(String translation) {
+        entityManager.find(Key.class, keyId).addTranslation(FR, translation);
+    }
+
+    @JpaUnit(Units.I18N)
+    @Transactional
+    public void updateFromOtherNode(String translation) {
+        // Bypasses the repository, as the other node would, so only the change log notifies the change
+        entityManager.find(Key.class, keyId).addTranslation(FR, translation);
+        logChangeFromOtherNode();
+    }
+
+    @JpaUnit(Units.I18N)
+    @Transactional
+    public void removeFromOtherNode() {
+        entityManager.remove(entityManager.find(Key.class, keyId));
+        logChangeFromOtherNode();
+    }
+
+    private void logChangeFromOtherNode() {
+        entityManager.persist(new ChangeLogEntry(ChangeLogEntry.ChangeType.KEY, keyId, OTHER_NODE,
+                System.currentTimeMillis()));
+    }
+}
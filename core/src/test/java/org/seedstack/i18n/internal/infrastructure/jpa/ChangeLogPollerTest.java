@@ -0,0 +1,115 @@
+/*
+ * Copyright © 2013-2020, The SeedStack authors <http://seedstack.org>
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.seedstack.i18n.internal.infrastructure.jpa;
+
+import static org.mockito.Mockito.mock;
+
+import java.util.concurrent.TimeUnit;
+import javax.persistence.EntityManager;
+import org.assertj.core.api.Assertions;
+import org.junit.Before;
+import org.junit.Test;
+import org.seedstack.i18n.I18nConfig;
+import org.seedstack.i18n.internal.domain.model.key.KeyRepository;
+
+public class ChangeLogPollerTest {
+    private static final long GAP_TIMEOUT = 60000;
+    private static final long NOW = TimeUnit.SECONDS.toNanos(1);
+
+    private ChangeLogPoller underTest;
+    private long highestEntry;
+
+    @Before
+    public void before() {
+        I18nConfig i18nConfig = new I18nConfig();
+        i18nConfig.changeLogConfig().setEnabled(true).setGapTimeout(GAP_TIMEOUT);
+        underTest = new ChangeLogPoller(i18nConfig, mock(EntityManager.class), mock(KeyRepository.class),
+                new ChangeLog(i18nConfig), mock(CacheSynchronizer.class));
+        underTest.startAfter(10);
+        highestEntry = 10;
+    }
+
+    @Test
+    public void watermark_follows_consecutive_entries() {
+        poll(NOW, 11, 12, 13);
+
+        Assertions.assertThat(underTest.getWatermark()).isEqualTo(13);
+    }
+
+    @Test
+    public void watermark_waits_for_entries_committed_out_of_order() {
+        poll(NOW, 11, 13);
+        Assertions.assertThat(underTest.getWatermark()).isEqualTo(11);
+
+        // The transaction of entry 12 commits after the one of entry 13
+        poll(NOW + 1, 12);
+        Assertions.assertThat(underTest.getWatermark()).isEqualTo(13);
+    }
+
+    @Test
+    public void entries_are_only_reported_once() {
+        Assertions.assertThat(underTest.markSeen(11)).isTrue();
+        Assertions.assertThat(underTest.markSeen(13)).isTrue();
+        underTest.advanceWatermark(13, NOW);
+
+        // Entry 13 is read again by the next poll, as the watermark is still below it
+        Assertions.assertThat(underTest.markSeen(13)).isFalse();
+        Assertions.assertThat(underTest.markSeen(12)).isTrue();
+    }
+
+    @Test
+    public void rolled_back_entries_are_given_up_after_the_gap_timeout() {
+        poll(NOW, 11, 13, 15);
+        Assertions.assertThat(underTest.getWatermark()).isEqualTo(11);
+
+        poll(NOW + gapTimeoutNanos() - 1);
+        Assertions.assertThat(underTest.getWatermark()).isEqualTo(11);
+
+        // Entries 12 and 14 belong to rolled back transactions, or the database skipped their numbers
+        poll(NOW + gapTimeoutNanos());
+        Assertions.assertThat(underTest.getWatermark()).isEqualTo(15);
+    }
+
+    @Test
+    public void gap_timeout_starts_when_the_entry_is_first_missed() {
+        poll(NOW, 11, 13);
+        poll(NOW + gapTimeoutNanos() / 2, 14);
+        poll(NOW + gapTimeoutNanos() / 2, 16);
+        Assertions.assertThat(underTest.getWatermark()).isEqualTo(11);
+
+        poll(NOW + gapTimeoutNanos());
+        // Entry 15 was missed later, so it is still waited for
+        Assertions.assertThat(underTest.getWatermark()).isEqualTo(14);
+
+        poll(NOW + gapTimeoutNanos() * 3 / 2);
+        Assertions.assertThat(underTest.getWatermark()).isEqualTo(16);
+    }
+
+    @Test
+    public void timed_out_entries_do_not_block_the_next_ones() {
+        poll(NOW, 12);
+        poll(NOW + gapTimeoutNanos());
+        Assertions.assertThat(underTest.getWatermark()).isEqualTo(12);
+
+        poll(NOW + gapTimeoutNanos() + 1, 13, 14);
+        Assertions.assertThat(underTest.getWatermark()).isEqualTo(14);
+    }
+
+    private void poll(long now, long... ids) {
+        // Each poll reads again all the entries above the watermark
+        for (long id : ids) {
+            underTest.markSeen(id);
+            highestEntry = Math.max(highestEntry, id);
+        }
+        underTest.advanceWatermark(highestEntry, now);
+    }
+
+    private static long gapTimeoutNanos() {
+        return TimeUnit.MILLISECONDS.toNanos(GAP_TIMEOUT);
+    }
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright © 2013-2020, The SeedStack authors <http://seedstack.org>
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.seedstack.i18n.internal.infrastructure.jpa;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.ImmutableMap;
+import java.util.Collections;
+import org.assertj.core.api.Assertions;
+import org.junit.Before;
+import org.junit.Test;
+import org.seedstack.i18n.I18nConfig;
+import org.seedstack.i18n.LocaleService;
+import org.seedstack.i18n.internal.domain.service.TranslationService;
+
+public class I18nCacheLoaderTest {
+    private static final String FR = "fr";
+    private static final String KEY1 = "key1";
+
+    private TranslationService translationService;
+    private TranslationSnapshotCache translationSnapshotCache;
+    private I18nCacheLoader underTest;
+
+    @Before
+    public void before() {
+        translationService = mock(TranslationService.class);
+        LocaleService localeService = mock(LocaleService.class);
+        when(localeService.getDefaultLocale()).thenReturn(FR);
+        translationSnapshotCache = mock(TranslationSnapshotCache.class);
+        underTest = new I18nCacheLoader(translationService, localeService, translationSnapshotCache,
+                new TranslationHistory(new I18nConfig.CacheConfig()));
+    }
+
+    @Test
+    public void bundle_is_loaded_again_when_written_before_being_published() {
+        when(translationService.loadTranslationsForLocale(FR))
+                .thenReturn(ImmutableMap.of(KEY1, "un"), ImmutableMap.of(KEY1, "premier"));
+        // The first load completes, then a write is applied before its bundle is published
+        when(translationSnapshotCache.currentGeneration()).thenReturn(0L, 0L, 1L);
+        CheckedLoadingCache loadingCache = new CheckedLoadingCache(CacheBuilder.newBuilder().build(underTest),
+                underTest, new TranslationVersions());
+
+        Assertions.assertThat(loadingCache.getUnchecked(FR).getContent().getTranslations())
+                .containsEntry(KEY1, "premier");
+        Assertions.assertThat(loadingCache.getUnchecked(FR).getContent().getTranslations())
+                .containsEntry(KEY1, "premier");
+    }
+
+    @Test
+    public void bundle_is_kept_when_no_write_happened() {
+        when(translationService.loadTranslationsForLocale(FR))
+                .thenReturn(ImmutableMap.of(KEY1, "un"), ImmutableMap.of(KEY1, "premier"));
+        when(translationSnapshotCache.currentGeneration()).thenReturn(0L);
+        CheckedLoadingCache loadingCache = new CheckedLoadingCache(CacheBuilder.newBuilder().build(underTest),
+                underTest, new TranslationVersions());
+
+        TranslationBundle translationBundle = loadingCache.getUnchecked(FR);
+
+        Assertions.assertThat(translationBundle.getContent().getTranslations()).containsEntry(KEY1, "un");
+        Assertions.assertThat(loadingCache.getUnchecked(FR)).isSameAs(translationBundle);
+    }
+
+    @Test
+    public void version_of_published_bundle_is_registered() {
+        when(translationService.loadTranslationsForLocale(FR)).thenReturn(ImmutableMap.of(KEY1, "un"));
+        when(translationSnapshotCache.currentGeneration()).thenReturn(0L);
+        TranslationVersions translationVersions = new TranslationVersions();
+        CheckedLoadingCache loadingCache = new CheckedLoadingCache(CacheBuilder.newBuilder().build(underTest),
+                underTest, translationVersions);
+
+        TranslationBundle translationBundle = loadingCache.getUnchecked(FR);
+
+        Assertions.assertThat(translationVersions.getVersion(FR, Collections.emptyList()))
+                .isEqualTo(translationBundle.getVersion());
+    }
+}
@@ -0,0 +1,38 @@
+/*
+ * Copyright © 2013-2020, The SeedStack authors <http://seedstack.org>
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.seedstack.i18n.internal.infrastructure.jpa;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import org.assertj.core.api.Assertions;
+import org.junit.Test;
+
+public class I18nCacheRefreshExecutorTest {
+    private final I18nCacheRefreshExecutor underTest = new I18nCacheRefreshExecutor();
+
+    @Test
+    public void reloads_run_in_the_background() throws InterruptedException {
+        CountDownLatch reloaded = new CountDownLatch(1);
+
+        underTest.execute(reloaded::countDown);
+
+        Assertions.assertThat(reloaded.await(5, TimeUnit.SECONDS)).isTrue();
+        underTest.stopping();
+    }
+
+    @Test(expected = RejectedExecutionException.class)
+    public void reloads_are_rejected_once_stopped() {
+        underTest.execute(() -> {
+        });
+        underTest.stopping();
+
+        underTest.execute(() -> {
+        });
+    }
+}
@@ -0,0 +1,149 @@
+/*
+ * Copyright © 2013-2020, The SeedStack authors <http://seedstack.org>
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.seedstack.i18n.internal.infrastructure.jpa;
+
+import static org.assertj.core.api.Assertions.entry;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
+import java.util.Collections;
+import java.util.List;
+import org.assertj.core.api.Assertions;
+import org.junit.Before;
+import org.junit.Test;
+import org.seedstack.i18n.I18nConfig;
+import org.seedstack.i18n.internal.domain.model.locale.Locale;
+import org.seedstack.i18n.internal.domain.model.locale.LocaleRepository;
+import org.seedstack.i18n.internal.domain.service.TranslationService;
+
+public class I18nCacheUpdaterTest {
+    private static final String FR = "fr";
+    private static final String FR_BE = "fr-BE";
+    private static final String KEY1 = "key1";
+    private static final String KEY2 = "key2";
+
+    private LoadingCache<String, TranslationBundle> loadingCache;
+    private TranslationService translationService;
+    private TranslationHistory translationHistory;
+    private TranslationVersions translationVersions;
+    private I18nCacheUpdater underTest;
+
+    @Before
+    public void before() {
+        loadingCache = CacheBuilder.newBuilder().build(new CacheLoader<String, TranslationBundle>() {
+            @Override
+            public TranslationBundle load(String locale) {
+                return new TranslationBundle(ImmutableMap.of(KEY1, "un", KEY2, "deux"));
+            }
+        });
+        translationService = mock(TranslationService.class);
+        Locale fr = mock(Locale.class);
+        when(fr.getId()).thenReturn(FR);
+        LocaleRepository localeRepository = mock(LocaleRepository.class);
+        when(localeRepository.loadAll()).thenReturn(Lists.newArrayList(fr));
+        when(localeRepository.getDefaultLocale()).thenReturn(fr);
+        translationHistory = new TranslationHistory(new I18nConfig.CacheConfig());
+        translationVersions = new TranslationVersions();
+        underTest = new I18nCacheUpdater(loadingCache, translationService, new LocaleSnapshotCache(localeRepository),
+                translationHistory, translationVersions);
+    }
+
+    @Test
+    public void updated_key_is_patched_in_each_bundle() {
+        TranslationBundle frBundle = loadingCache.getUnchecked(FR);
+        TranslationBundle frBeBundle = loadingCache.getUnchecked(FR_BE);
+        when(translationService.getTranslationsWithFallback(FR, Collections.singleton(KEY1)))
+                .thenReturn(ImmutableMap.of(KEY1, "premier"));
+        when(translationService.getTranslationsWithFallback(FR_BE, Collections.singleton(KEY1)))
+                .thenReturn(ImmutableMap.of(KEY1, "premier"));
+
+        underTest.keysUpdated(Collections.singleton(KEY1));
+
+        Assertions.assertThat(loadingCache.getUnchecked(FR)).isSameAs(frBundle);
+        Assertions.assertThat(frBundle.getContent().getTranslations())
+                .containsOnly(entry(KEY1, "premier"), entry(KEY2, "deux"));
+        Assertions.assertThat(loadingCache.getUnchecked(FR_BE)).isSameAs(frBeBundle);
+        Assertions.assertThat(frBeBundle.getContent().getTranslations())
+                .containsOnly(entry(KEY1, "premier"), entry(KEY2, "deux"));
+    }
+
+    @Test
+    public void untranslated_key_is_removed_from_bundles() {
+        loadingCache.getUnchecked(FR);
+        when(translationService.getTranslationsWithFallback(FR, Collections.singleton(KEY1)))
+                .thenReturn(Collections.emptyMap());
+
+        underTest.keysUpdated(Collections.singleton(KEY1));
+
+        Assertions.assertThat(loadingCache.getUnchecked(FR).getContent().getTranslations())
+                .containsOnly(entry(KEY2, "deux"));
+    }
+
+    @Test
+    public void removed_key_is_removed_from_bundles() {
+        loadingCache.getUnchecked(FR);
+
+        underTest.keysRemoved(Collections.singleton(KEY2));
+
+        Assertions.assertThat(loadingCache.getUnchecked(FR).getContent().getTranslations())
+                .containsOnly(entry(KEY1, "un"));
+    }
+
+    @Test
+    public void patches_are_recorded_in_history() {
+        loadingCache.getUnchecked(FR);
+        String version = translationHistory.getVersion();
+        when(translationService.getTranslationsWithFallback(FR, Collections.singleton(KEY1)))
+                .thenReturn(ImmutableMap.of(KEY1, "premier"));
+
+        underTest.keysUpdated(Collections.singleton(KEY1));
+        underTest.keysRemoved(Collections.singleton(KEY2));
+
+        Assertions.assertThat(translationHistory.getChangesSince(version).getKeyIds()).containsOnly(KEY1, KEY2);
+    }
+
+    @Test
+    public void invalidation_starts_a_new_history() {
+        String version = translationHistory.getVersion();
+
+        underTest.invalidateAll();
+
+        Assertions.assertThat(translationHistory.getChangesSince(version)).isNull();
+    }
+
+    @Test
+    public void patches_are_registered_as_new_versions() {
+        TranslationBundle frBundle = loadingCache.getUnchecked(FR);
+        translationVersions.register(FR, frBundle);
+        List<String> prefixes = Collections.singletonList("key");
+        translationVersions.filtered(FR, frBundle.getContent(), prefixes, frBundle.getContent().filter(prefixes));
+        when(translationService.getTranslationsWithFallback(FR, Collections.singleton(KEY1)))
+                .thenReturn(ImmutableMap.of(KEY1, "premier"));
+
+        underTest.keysUpdated(Collections.singleton(KEY1));
+
+        Assertions.assertThat(translationVersions.getVersion(FR, Collections.emptyList()))
+                .isEqualTo(frBundle.getVersion());
+        // Filtered messages are extracted again from the patched bundle
+        Assertions.assertThat(translationVersions.getVersion(FR, prefixes)).isNull();
+    }
+
+    @Test
+    public void invalidation_forgets_the_versions() {
+        translationVersions.register(FR, loadingCache.getUnchecked(FR));
+
+        underTest.invalidateAll();
+
+        Assertions.assertThat(translationVersions.getVersion(FR, Collections.emptyList())).isNull();
+    }
+}
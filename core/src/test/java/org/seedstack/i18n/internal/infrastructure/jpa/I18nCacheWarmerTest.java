@@ -0,0 +1,70 @@
+/*
+ * Copyright © 2013-2020, The SeedStack authors <http://seedstack.org>
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.seedstack.i18n.internal.infrastructure.jpa;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Sets;
+import java.util.concurrent.TimeUnit;
+import org.assertj.core.api.Assertions;
+import org.junit.Before;
+import org.junit.Test;
+import org.seedstack.i18n.I18nConfig;
+import org.seedstack.i18n.LocaleService;
+
+public class I18nCacheWarmerTest {
+    private static final String EN = "en";
+    private static final String FR = "fr";
+    private static final String DE = "de";
+
+    private I18nConfig.CacheConfig cacheConfig;
+    private LoadingCache<String, TranslationBundle> loadingCache;
+    private I18nCacheWarmer underTest;
+
+    @Before
+    public void before() {
+        cacheConfig = mock(I18nConfig.CacheConfig.class);
+        when(cacheConfig.getWarmUpThreads()).thenReturn(2);
+        loadingCache = CacheBuilder.newBuilder().build(new CacheLoader<String, TranslationBundle>() {
+            @Override
+            public TranslationBundle load(String locale) {
+                if (DE.equals(locale)) {
+                    throw new IllegalStateException("Unable to load " + locale);
+                }
+                return new TranslationBundle(ImmutableMap.of("key", locale));
+            }
+        });
+        LocaleService localeService = mock(LocaleService.class);
+        when(localeService.getAvailableLocales()).thenReturn(Sets.newHashSet(EN, FR, DE));
+        underTest = new I18nCacheWarmer(cacheConfig, loadingCache, localeService);
+    }
+
+    @Test
+    public void available_locales_are_loaded_at_startup() throws InterruptedException {
+        when(cacheConfig.isWarmUp()).thenReturn(true);
+
+        underTest.started();
+
+        Assertions.assertThat(underTest.awaitWarmUp(10, TimeUnit.SECONDS)).isTrue();
+        Assertions.assertThat(underTest.isWarmedUp()).isTrue();
+        Assertions.assertThat(loadingCache.asMap()).containsOnlyKeys(EN, FR);
+    }
+
+    @Test
+    public void nothing_is_loaded_without_warm_up() {
+        underTest.started();
+
+        Assertions.assertThat(underTest.isWarmedUp()).isTrue();
+        Assertions.assertThat(loadingCache.size()).isZero();
+    }
+}
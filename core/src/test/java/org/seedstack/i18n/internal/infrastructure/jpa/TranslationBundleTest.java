@@ -0,0 +1,136 @@
+/*
+ * Copyright © 2013-2020, The SeedStack authors <http://seedstack.org>
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.seedstack.i18n.internal.infrastructure.jpa;
+
+import static org.assertj.core.api.Assertions.entry;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
+import java.util.Collections;
+import org.assertj.core.api.Assertions;
+import org.junit.Test;
+
+public class TranslationBundleTest {
+    private static final String KEY1 = "key1";
+    private static final String KEY2 = "key2";
+
+    @Test
+    public void version_depends_on_content_only() {
+        TranslationBundle bundle = new TranslationBundle(ImmutableMap.of(KEY1, "un", KEY2, "deux"));
+        TranslationBundle sameBundle = new TranslationBundle(ImmutableMap.of(KEY2, "deux", KEY1, "un"));
+        TranslationBundle otherBundle = new TranslationBundle(ImmutableMap.of(KEY1, "deux", KEY2, "un"));
+
+        Assertions.assertThat(bundle.getVersion()).isEqualTo(sameBundle.getVersion());
+        Assertions.assertThat(bundle.getVersion()).isNotEqualTo(otherBundle.getVersion());
+    }
+
+    @Test
+    public void version_is_updated_by_patches() {
+        TranslationBundle bundle = new TranslationBundle(ImmutableMap.of(KEY1, "un", KEY2, "deux"));
+        String version = bundle.getVersion();
+
+        bundle.put(KEY1, "premier");
+        Assertions.assertThat(bundle.getVersion()).isNotEqualTo(version);
+        Assertions.assertThat(bundle.getVersion())
+                .isEqualTo(new TranslationBundle(ImmutableMap.of(KEY1, "premier", KEY2, "deux")).getVersion());
+
+        bundle.remove(KEY2);
+        Assertions.assertThat(bundle.getVersion())
+                .isEqualTo(new TranslationBundle(ImmutableMap.of(KEY1, "premier")).getVersion());
+    }
+
+    @Test
+    public void content_is_replaced_on_change_only() {
+        TranslationBundle bundle = new TranslationBundle(ImmutableMap.of(KEY1, "un"));
+        TranslationBundle.Content content = bundle.getContent();
+
+        Assertions.assertThat(bundle.getContent()).isSameAs(content);
+        bundle.put(KEY1, "un");
+        Assertions.assertThat(bundle.getContent()).isSameAs(content);
+
+        bundle.put(KEY2, "deux");
+        Assertions.assertThat(content.getTranslations()).containsOnly(entry(KEY1, "un"));
+        Assertions.assertThat(bundle.getContent().getVersion()).isEqualTo(bundle.getVersion());
+        Assertions.assertThat(bundle.getContent().getTranslations()).containsOnly(entry(KEY1, "un"),
+                entry(KEY2, "deux"));
+    }
+
+    @Test
+    public void changes_of_a_transaction_produce_a_single_content() {
+        TranslationBundle bundle = new TranslationBundle(ImmutableMap.of(KEY1, "un", KEY2, "deux"));
+        TranslationBundle.Content content = bundle.getContent();
+
+        bundle.patch(ImmutableMap.of(KEY1, "premier", "key3", "trois"), Lists.newArrayList(KEY2, "unknown"));
+
+        Assertions.assertThat(content.getTranslations()).containsOnly(entry(KEY1, "un"), entry(KEY2, "deux"));
+        Assertions.assertThat(bundle.getContent().getTranslations()).containsOnly(entry(KEY1, "premier"),
+                entry("key3", "trois"));
+        Assertions.assertThat(bundle.getVersion())
+                .isEqualTo(new TranslationBundle(ImmutableMap.of(KEY1, "premier", "key3", "trois")).getVersion());
+    }
+
+    @Test
+    public void content_is_filtered_by_prefixes() {
+        TranslationBundle bundle = new TranslationBundle(ImmutableMap.of("billing.title", "Facture",
+                "billing.total", "Total", "catalog.title", "Catalogue", "cart", "Panier"));
+        TranslationBundle.Content content = bundle.getContent();
+
+        TranslationBundle.Content billing = content.filter(Collections.singleton("billing."));
+        Assertions.assertThat(billing.getTranslations()).containsOnly(entry("billing.title", "Facture"),
+                entry("billing.total", "Total"));
+        Assertions.assertThat(billing.getVersion()).isNotEqualTo(content.getVersion());
+        Assertions.assertThat(content.filter(Collections.singleton("billing."))).isSameAs(billing);
+
+        Assertions.assertThat(content.filter(Lists.newArrayList("catalog.", "billing.", "billing.t"))
+                .getTranslations()).containsOnlyKeys("billing.title", "billing.total", "catalog.title");
+        Assertions.assertThat(content.filter(Collections.singleton("unknown.")).getTranslations()).isEmpty();
+        Assertions.assertThat(content.filter(Collections.singleton(""))).isSameAs(content);
+    }
+
+    @Test
+    public void retained_bytes_follow_the_content() {
+        TranslationBundle bundle = new TranslationBundle(ImmutableMap.of(KEY1, "un"));
+        long retainedBytes = bundle.getRetainedBytes();
+        Assertions.assertThat(retainedBytes)
+                .isGreaterThan(new TranslationBundle(Collections.emptyMap()).getRetainedBytes());
+
+        bundle.put(KEY2, "deux");
+        Assertions.assertThat(bundle.getRetainedBytes()).isGreaterThan(retainedBytes);
+        bundle.put(KEY1, "un, longer");
+        bundle.put(KEY1, "un");
+        bundle.remove(KEY2);
+        Assertions.assertThat(bundle.getRetainedBytes()).isEqualTo(retainedBytes);
+        Assertions.assertThat(new TranslationBundle(ImmutableMap.of(KEY1, "un")).getRetainedBytes())
+                .isEqualTo(retainedBytes);
+    }
+
+    @Test
+    public void weight_is_outdated_when_patches_change_it_significantly() {
+        TranslationBundle bundle = new TranslationBundle(ImmutableMap.of(KEY1, "un"));
+        Assertions.assertThat(bundle.weigh()).isEqualTo(bundle.getRetainedBytes());
+        Assertions.assertThat(bundle.isWeightOutdated()).isFalse();
+
+        bundle.put(KEY2, "deux");
+
+        Assertions.assertThat(bundle.isWeightOutdated()).isTrue();
+        bundle.weigh();
+        Assertions.assertThat(bundle.isWeightOutdated()).isFalse();
+    }
+
+    @Test
+    public void identical_strings_are_shared() {
+        TranslationBundle fr = new TranslationBundle(ImmutableMap.of(KEY1, new String("Annuler")));
+        TranslationBundle frBe = new TranslationBundle(ImmutableMap.of(new String(KEY1), new String("Annuler"),
+                KEY2, new String("Annuler")));
+
+        Assertions.assertThat(frBe.getContent().getTranslations().get(KEY2))
+                .isSameAs(frBe.getContent().getTranslations().get(KEY1))
+                .isSameAs(fr.getContent().getTranslations().get(KEY1));
+        Assertions.assertThat(frBe.getDeduplicatedBytes()).isGreaterThan(0);
+    }
+}
@@ -0,0 +1,68 @@
+/*
+ * Copyright © 2013-2020, The SeedStack authors <http://seedstack.org>
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.seedstack.i18n.internal.infrastructure.jpa;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.google.common.collect.Lists;
+import java.util.Collections;
+import org.assertj.core.api.Assertions;
+import org.junit.Before;
+import org.junit.Test;
+import org.seedstack.i18n.I18nConfig;
+
+public class TranslationHistoryTest {
+    private static final String KEY1 = "key1";
+    private static final String KEY2 = "key2";
+    private static final String KEY3 = "key3";
+
+    private TranslationHistory underTest;
+
+    @Before
+    public void before() {
+        I18nConfig.CacheConfig cacheConfig = mock(I18nConfig.CacheConfig.class);
+        when(cacheConfig.getHistorySize()).thenReturn(2);
+        underTest = new TranslationHistory(cacheConfig);
+    }
+
+    @Test
+    public void changes_since_a_version_are_returned() {
+        underTest.keysChanged(Collections.singleton(KEY1));
+        String version = underTest.getVersion();
+        underTest.keysChanged(Collections.singleton(KEY2));
+
+        TranslationHistory.Delta delta = underTest.getChangesSince(version);
+
+        Assertions.assertThat(delta.getKeyIds()).containsOnly(KEY2);
+        Assertions.assertThat(delta.getVersion()).isEqualTo(underTest.getVersion());
+        Assertions.assertThat(underTest.getChangesSince(delta.getVersion()).getKeyIds()).isEmpty();
+    }
+
+    @Test
+    public void forgotten_changes_have_no_delta() {
+        String version = underTest.getVersion();
+        underTest.keysChanged(Lists.newArrayList(KEY1, KEY2));
+        String intermediateVersion = underTest.getVersion();
+        underTest.keysChanged(Collections.singleton(KEY3));
+
+        Assertions.assertThat(underTest.getChangesSince(version)).isNull();
+        Assertions.assertThat(underTest.getChangesSince(intermediateVersion).getKeyIds()).containsOnly(KEY3);
+    }
+
+    @Test
+    public void unknown_versions_have_no_delta() {
+        String version = underTest.getVersion();
+
+        underTest.reset();
+
+        Assertions.assertThat(underTest.getChangesSince(version)).isNull();
+        Assertions.assertThat(underTest.getChangesSince("unknown")).isNull();
+        Assertions.assertThat(underTest.getChangesSince(null)).isNull();
+    }
+}
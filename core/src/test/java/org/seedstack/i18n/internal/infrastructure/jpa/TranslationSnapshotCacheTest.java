@@ -0,0 +1,127 @@
+/*
+ * Copyright © 2013-2020, The SeedStack authors <http://seedstack.org>
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.seedstack.i18n.internal.infrastructure.jpa;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.google.common.collect.Lists;
+import java.util.Collections;
+import org.assertj.core.api.Assertions;
+import org.junit.Before;
+import org.junit.Test;
+import org.seedstack.i18n.internal.domain.model.key.Key;
+import org.seedstack.i18n.internal.domain.model.key.KeyRepository;
+
+public class TranslationSnapshotCacheTest {
+    private static final String FR = "fr";
+    private static final String KEY1 = "key1";
+    private static final String KEY2 = "key2";
+
+    private KeyRepository keyRepository;
+    private TranslationSnapshotCache underTest;
+
+    @Before
+    public void before() {
+        keyRepository = mock(KeyRepository.class);
+        underTest = new TranslationSnapshotCache(keyRepository);
+    }
+
+    @Test
+    public void snapshot_is_loaded_once() {
+        when(keyRepository.loadAll()).thenReturn(Lists.newArrayList(key(KEY1, "un")));
+
+        Assertions.assertThat(underTest.get().getTranslation(KEY1, FR)).isEqualTo("un");
+        Assertions.assertThat(underTest.get().getTranslation(KEY1, FR)).isEqualTo("un");
+
+        verify(keyRepository, times(1)).loadAll();
+    }
+
+    @Test
+    public void snapshot_is_patched_on_write() {
+        when(keyRepository.loadAll()).thenReturn(Lists.newArrayList(key(KEY1, "un")));
+        TranslationSnapshot initialSnapshot = underTest.get();
+
+        underTest.keyUpdated(key(KEY2, "deux"));
+        underTest.keyRemoved(KEY1);
+
+        TranslationSnapshot snapshot = underTest.get();
+        Assertions.assertThat(snapshot.containsKey(KEY1)).isFalse();
+        Assertions.assertThat(snapshot.getTranslation(KEY2, FR)).isEqualTo("deux");
+        Assertions.assertThat(initialSnapshot.getTranslation(KEY1, FR)).isEqualTo("un");
+        verify(keyRepository, times(1)).loadAll();
+    }
+
+    @Test
+    public void changes_of_a_transaction_are_applied_at_once() {
+        when(keyRepository.loadAll()).thenReturn(Lists.newArrayList(key(KEY1, "un")));
+        underTest.get();
+        long generation = underTest.currentGeneration();
+
+        underTest.keysChanged(Lists.newArrayList(key(KEY2, "deux"), key("key3", "trois")),
+                Collections.singleton(KEY1));
+
+        TranslationSnapshot snapshot = underTest.get();
+        Assertions.assertThat(snapshot.size()).isEqualTo(2);
+        Assertions.assertThat(snapshot.containsKey(KEY1)).isFalse();
+        Assertions.assertThat(snapshot.getTranslation("key3", FR)).isEqualTo("trois");
+        Assertions.assertThat(underTest.currentGeneration()).isEqualTo(generation + 1);
+    }
+
+    @Test
+    public void snapshot_is_reloaded_after_invalidation() {
+        when(keyRepository.loadAll()).thenReturn(Lists.newArrayList(key(KEY1, "un")));
+        underTest.get();
+
+        underTest.invalidate();
+        underTest.get();
+
+        verify(keyRepository, times(2)).loadAll();
+    }
+
+    @Test
+    public void missing_key_is_remembered() {
+        when(keyRepository.loadAll()).thenReturn(Lists.newArrayList(key(KEY1, "un")));
+
+        Assertions.assertThat(underTest.getMissingKeyPlaceholder(KEY1)).isNull();
+        String placeholder = underTest.getMissingKeyPlaceholder(KEY2);
+
+        Assertions.assertThat(placeholder).isEqualTo("[key2]");
+        Assertions.assertThat(underTest.getMissingKeyPlaceholder(KEY2)).isSameAs(placeholder);
+    }
+
+    @Test
+    public void existing_keys_are_not_counted_as_missing() {
+        when(keyRepository.loadAll()).thenReturn(Lists.newArrayList(key(KEY1, "un")));
+
+        underTest.getMissingKeyPlaceholder(KEY1);
+        underTest.getMissingKeyPlaceholder(KEY2);
+        underTest.getMissingKeyPlaceholder(KEY2);
+
+        Assertions.assertThat(underTest.getMissingKeyStats().requestCount()).isEqualTo(2);
+        Assertions.assertThat(underTest.getMissingKeyStats().hitCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void missing_key_is_forgotten_when_created() {
+        when(keyRepository.loadAll()).thenReturn(Lists.newArrayList(key(KEY1, "un")));
+        Assertions.assertThat(underTest.getMissingKeyPlaceholder(KEY2)).isEqualTo("[key2]");
+
+        underTest.keyUpdated(key(KEY2, "deux"));
+
+        Assertions.assertThat(underTest.getMissingKeyPlaceholder(KEY2)).isNull();
+    }
+
+    private Key key(String name, String translation) {
+        Key key = new Key(name);
+        key.addTranslation(FR, translation);
+        return key;
+    }
+}
@@ -0,0 +1,116 @@
+/*
+ * Copyright © 2013-2020, The SeedStack authors <http://seedstack.org>
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.seedstack.i18n.internal.infrastructure.jpa;
+
+import com.google.common.collect.Lists;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import org.assertj.core.api.Assertions;
+import org.junit.Test;
+import org.seedstack.i18n.internal.domain.model.key.Key;
+
+public class TranslationSnapshotTest {
+    private static final String EN = "en";
+    private static final String FR = "fr";
+    private static final String FR_BE = "fr-BE";
+    private static final String KEY1 = "key1";
+    private static final String KEY2 = "key2";
+
+    @Test
+    public void translations_are_resolved_by_key_and_locale() {
+        TranslationSnapshot snapshot = TranslationSnapshot.of(Lists.newArrayList(key(KEY1, "one", "un"),
+                key(KEY2, "two", null)));
+
+        Assertions.assertThat(snapshot.size()).isEqualTo(2);
+        Assertions.assertThat(snapshot.containsKey(KEY1)).isTrue();
+        Assertions.assertThat(snapshot.containsKey("unknown")).isFalse();
+        Assertions.assertThat(snapshot.getTranslation(KEY1, FR)).isEqualTo("un");
+        Assertions.assertThat(snapshot.getTranslation(KEY2, FR)).isNull();
+        Assertions.assertThat(snapshot.getTranslation(KEY1, "de")).isNull();
+        Assertions.assertThat(snapshot.getTranslations(KEY1)).containsOnly(Assertions.entry(EN, "one"),
+                Assertions.entry(FR, "un"));
+        Assertions.assertThat(snapshot.getTranslations("unknown")).isNull();
+    }
+
+    @Test
+    public void first_available_translation_of_the_chain_is_returned() {
+        TranslationSnapshot snapshot = TranslationSnapshot.of(Lists.newArrayList(key(KEY1, "one", "un"),
+                key(KEY2, "two", null)));
+
+        Assertions.assertThat(snapshot.getTranslation(KEY1, new String[]{FR_BE, FR, EN})).isEqualTo("un");
+        Assertions.assertThat(snapshot.getTranslation(KEY2, new String[]{FR_BE, FR, EN})).isEqualTo("two");
+        Assertions.assertThat(snapshot.getTranslation(KEY2, new String[]{FR_BE, FR})).isNull();
+    }
+
+    @Test
+    public void identical_translations_are_shared() {
+        TranslationSnapshot snapshot = TranslationSnapshot.of(Lists.newArrayList(
+                key(KEY1, new String("Cancel"), new String("Annuler")),
+                key(KEY2, new String("Cancel"), new String("Annuler"))));
+
+        Assertions.assertThat(snapshot.getTranslation(KEY2, FR)).isSameAs(snapshot.getTranslation(KEY1, FR));
+        Assertions.assertThat(snapshot.getTranslation(KEY2, EN)).isSameAs(snapshot.getTranslation(KEY1, EN));
+        Assertions.assertThat(snapshot.getDeduplicatedBytes()).isGreaterThan(0);
+    }
+
+    @Test
+    public void flags_are_kept() {
+        Key key = key(KEY1, "one", null);
+        key.addTranslation(FR, "un", true);
+        key.setOutdated();
+        key.addTranslation(EN, "one, updated");
+        TranslationSnapshot snapshot = TranslationSnapshot.of(Collections.singletonList(key));
+
+        Assertions.assertThat(snapshot.isApproximate(KEY1, FR)).isTrue();
+        Assertions.assertThat(snapshot.isApproximate(KEY1, EN)).isFalse();
+        Assertions.assertThat(snapshot.isOutdated(KEY1, FR)).isTrue();
+        Assertions.assertThat(snapshot.isOutdated(KEY1, EN)).isFalse();
+        Assertions.assertThat(snapshot.isOutdated("unknown", FR)).isFalse();
+    }
+
+    @Test
+    public void patches_do_not_modify_the_snapshot() {
+        TranslationSnapshot snapshot = TranslationSnapshot.of(Lists.newArrayList(key(KEY1, "one", "un")));
+
+        TranslationSnapshot patched = snapshot.with(key(KEY2, "two", "deux")).without(KEY1);
+
+        Assertions.assertThat(patched.size()).isEqualTo(1);
+        Assertions.assertThat(patched.containsKey(KEY1)).isFalse();
+        Assertions.assertThat(patched.getTranslation(KEY2, FR)).isEqualTo("deux");
+        Assertions.assertThat(patched.without(KEY1)).isSameAs(patched);
+        Assertions.assertThat(snapshot.size()).isEqualTo(1);
+        Assertions.assertThat(snapshot.getTranslation(KEY1, FR)).isEqualTo("un");
+        Assertions.assertThat(snapshot.containsKey(KEY2)).isFalse();
+    }
+
+    @Test
+    public void patches_are_compacted() {
+        TranslationSnapshot snapshot = TranslationSnapshot.of(Lists.newArrayList(key(KEY1, "one", "un")));
+        List<Key> updatedKeys = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            updatedKeys.add(key("key.new" + i, "new " + i, "nouveau " + i));
+        }
+
+        TranslationSnapshot patched = snapshot.patched(updatedKeys, Collections.singleton(KEY1));
+
+        Assertions.assertThat(patched.size()).isEqualTo(1000);
+        Assertions.assertThat(patched.containsKey(KEY1)).isFalse();
+        Assertions.assertThat(patched.getTranslation("key.new999", FR)).isEqualTo("nouveau 999");
+        Assertions.assertThat(patched.with(key(KEY1, "one", null)).size()).isEqualTo(1001);
+    }
+
+    private Key key(String keyId, String english, String french) {
+        Key key = new Key(keyId);
+        key.addTranslation(EN, english);
+        if (french != null) {
+            key.addTranslation(FR, french);
+        }
+        return key;
+    }
+}
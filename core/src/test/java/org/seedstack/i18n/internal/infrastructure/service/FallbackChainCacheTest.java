@@ -0,0 +1,65 @@
+/*
+ * Copyright © 2013-2020, The SeedStack authors <http://seedstack.org>
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.seedstack.i18n.internal.infrastructure.service;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.google.common.collect.Lists;
+import org.assertj.core.api.Assertions;
+import org.junit.Before;
+import org.junit.Test;
+import org.seedstack.i18n.internal.domain.model.locale.Locale;
+import org.seedstack.i18n.internal.domain.model.locale.LocaleRepository;
+import org.seedstack.i18n.internal.infrastructure.jpa.LocaleSnapshotCache;
+
+public class FallbackChainCacheTest {
+    private static final String EN = "en";
+    private static final String FR = "fr";
+    private static final String FR_BE = "fr-BE";
+
+    private LocaleRepository localeRepository;
+    private FallbackChainCache underTest;
+
+    @Before
+    public void before() {
+        localeRepository = mock(LocaleRepository.class);
+        Locale en = locale(EN);
+        Locale fr = locale(FR);
+        when(localeRepository.loadAll()).thenReturn(Lists.newArrayList(en, fr));
+        when(localeRepository.getDefaultLocale()).thenReturn(en);
+        underTest = new FallbackChainCache(new LocaleSnapshotCache(localeRepository));
+    }
+
+    @Test
+    public void chain_contains_parent_locales() {
+        Assertions.assertThat(underTest.getFallbackChain(FR_BE, false)).containsExactly(FR_BE, FR);
+    }
+
+    @Test
+    public void chain_ends_with_default_locale() {
+        Assertions.assertThat(underTest.getFallbackChain(FR_BE, true)).containsExactly(FR_BE, FR, EN);
+        Assertions.assertThat(underTest.getFallbackChain(EN, true)).containsExactly(EN);
+    }
+
+    @Test
+    public void chain_is_computed_once() {
+        String[] chain = underTest.getFallbackChain(FR_BE, true);
+
+        Assertions.assertThat(underTest.getFallbackChain(FR_BE, true)).isSameAs(chain);
+        verify(localeRepository, times(1)).getDefaultLocale();
+    }
+
+    private Locale locale(String code) {
+        Locale locale = mock(Locale.class);
+        when(locale.getId()).thenReturn(code);
+        return locale;
+    }
+}
@@ -0,0 +1,52 @@
+/*
+ * Copyright © 2013-2020, The SeedStack authors <http://seedstack.org>
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.seedstack.i18n.internal.infrastructure.service;
+
+import com.ibm.icu.text.DateFormat;
+import com.ibm.icu.text.NumberFormat;
+import com.ibm.icu.util.Currency;
+import com.ibm.icu.util.ULocale;
+import org.assertj.core.api.Assertions;
+import org.junit.Test;
+
+public class FormatterCacheTest {
+    private static final ULocale EN_US = new ULocale("en-US");
+    private static final String SKELETON = "yyyyMMdd";
+
+    private final FormatterCache underTest = new FormatterCache();
+
+    @Test
+    public void formatters_are_cached_but_not_shared() {
+        NumberFormat first = underTest.getNumberFormat(EN_US);
+        NumberFormat second = underTest.getNumberFormat(EN_US);
+
+        Assertions.assertThat(second).isNotSameAs(first);
+        Assertions.assertThat(second.format(10000.5)).isEqualTo(first.format(10000.5));
+        Assertions.assertThat(underTest.getStats().missCount()).isEqualTo(1);
+        Assertions.assertThat(underTest.getStats().hitCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void timezone_is_part_of_the_cache_key() {
+        DateFormat utc = underTest.getDateFormat(EN_US, SKELETON, "UTC");
+        DateFormat tokyo = underTest.getDateFormat(EN_US, SKELETON, "Asia/Tokyo");
+
+        Assertions.assertThat(utc.getTimeZone().getID()).isEqualTo("UTC");
+        Assertions.assertThat(tokyo.getTimeZone().getID()).isEqualTo("Asia/Tokyo");
+        Assertions.assertThat(underTest.getStats().missCount()).isEqualTo(2);
+    }
+
+    @Test
+    public void currency_is_part_of_the_cache_key() {
+        String dollars = underTest.getCurrencyFormat(EN_US, Currency.getInstance("USD")).format(10);
+        String euros = underTest.getCurrencyFormat(EN_US, Currency.getInstance("EUR")).format(10);
+
+        Assertions.assertThat(dollars).isNotEqualTo(euros);
+        Assertions.assertThat(underTest.getStats().missCount()).isEqualTo(2);
+    }
+}
@@ -0,0 +1,123 @@
+/*
+ * Copyright © 2013-2020, The SeedStack authors <http://seedstack.org>
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.seedstack.i18n.internal.infrastructure.service;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import com.google.common.collect.Lists;
+import com.ibm.icu.util.ULocale;
+import java.lang.management.ManagementFactory;
+import java.util.Collections;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import org.assertj.core.api.Assertions;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.seedstack.i18n.internal.domain.model.key.KeyRepository;
+import org.seedstack.i18n.internal.domain.model.locale.Locale;
+import org.seedstack.i18n.internal.domain.model.locale.LocaleFactory;
+import org.seedstack.i18n.internal.domain.model.locale.LocaleRepository;
+import org.seedstack.i18n.internal.infrastructure.jpa.LocaleSnapshotCache;
+import org.seedstack.i18n.internal.infrastructure.jpa.TranslationBundle;
+import org.seedstack.i18n.internal.infrastructure.jpa.TranslationSnapshotCache;
+
+public class I18nCacheMonitorTest {
+    private static final ULocale EN = new ULocale("en");
+
+    private LoadingCache<String, TranslationBundle> loadingCache;
+    private MessageFormatCache messageFormatCache;
+    private FormatterCache formatterCache;
+    private FallbackChainCache fallbackChainCache;
+    private ICULocaleService localeService;
+    private I18nCacheMonitor underTest;
+
+    @Before
+    public void before() {
+        loadingCache = CacheBuilder.newBuilder().recordStats()
+                .build(CacheLoader.from(locale -> new TranslationBundle(Collections.emptyMap())));
+        messageFormatCache = new MessageFormatCache();
+        formatterCache = new FormatterCache();
+        Locale en = mock(Locale.class);
+        when(en.getId()).thenReturn("en");
+        LocaleRepository localeRepository = mock(LocaleRepository.class);
+        when(localeRepository.loadAll()).thenReturn(Lists.newArrayList(en));
+        when(localeRepository.getDefaultLocale()).thenReturn(en);
+        LocaleSnapshotCache localeSnapshotCache = new LocaleSnapshotCache(localeRepository);
+        fallbackChainCache = new FallbackChainCache(localeSnapshotCache);
+        localeService = new ICULocaleService(localeRepository, mock(LocaleFactory.class), localeSnapshotCache);
+        underTest = new I18nCacheMonitor(loadingCache, new TranslationSnapshotCache(mock(KeyRepository.class)),
+                messageFormatCache, formatterCache, fallbackChainCache, localeService);
+    }
+
+    @After
+    public void after() {
+        underTest.stopping();
+    }
+
+    @Test
+    public void statistics_of_each_cache_are_provided() {
+        Assertions.assertThat(underTest.getStatistics()).containsOnlyKeys(I18nCacheMonitor.TRANSLATION_BUNDLES,
+                I18nCacheMonitor.MISSING_KEYS, I18nCacheMonitor.MESSAGE_FORMATS, I18nCacheMonitor.FORMATTERS,
+                I18nCacheMonitor.FALLBACK_CHAINS, I18nCacheMonitor.CLOSEST_LOCALES);
+    }
+
+    @Test
+    public void statistics_are_recorded() {
+        loadingCache.getUnchecked("en");
+        loadingCache.getUnchecked("en");
+        messageFormatCache.format(EN, "key", "Hello {0}", new Object[]{"John"});
+
+        CacheStatistics bundles = underTest.getStatistics(I18nCacheMonitor.TRANSLATION_BUNDLES);
+        Assertions.assertThat(bundles.getHitCount()).isEqualTo(1);
+        Assertions.assertThat(bundles.getMissCount()).isEqualTo(1);
+        Assertions.assertThat(bundles.getHitRate()).isEqualTo(0.5);
+        Assertions.assertThat(bundles.getLoadCount()).isEqualTo(1);
+        Assertions.assertThat(bundles.getEstimatedSize()).isEqualTo(1);
+        Assertions.assertThat(underTest.getStatistics(I18nCacheMonitor.MESSAGE_FORMATS).getEstimatedSize())
+                .isEqualTo(1);
+    }
+
+    @Test
+    public void statistics_of_locale_resolutions_are_recorded() {
+        fallbackChainCache.getFallbackChain("en-US", true);
+        fallbackChainCache.getFallbackChain("en-US", true);
+        localeService.getClosestLocale("en-GB");
+
+        CacheStatistics fallbackChains = underTest.getStatistics(I18nCacheMonitor.FALLBACK_CHAINS);
+        Assertions.assertThat(fallbackChains.getHitCount()).isEqualTo(1);
+        Assertions.assertThat(fallbackChains.getMissCount()).isEqualTo(1);
+        Assertions.assertThat(fallbackChains.getEstimatedSize()).isEqualTo(2);
+        CacheStatistics closestLocales = underTest.getStatistics(I18nCacheMonitor.CLOSEST_LOCALES);
+        Assertions.assertThat(closestLocales.getMissCount()).isEqualTo(1);
+        Assertions.assertThat(closestLocales.getEstimatedSize()).isEqualTo(1);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void unknown_cache_is_rejected() {
+        underTest.getStatistics("unknown");
+    }
+
+    @Test
+    public void statistics_are_published_over_jmx() throws Exception {
+        MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+        ObjectName objectName = new ObjectName("org.seedstack.i18n:type=Cache,name=translationBundles");
+        loadingCache.getUnchecked("en");
+
+        underTest.started();
+        Assertions.assertThat(mBeanServer.getAttribute(objectName, "EstimatedSize")).isEqualTo(1L);
+        Assertions.assertThat(mBeanServer.getAttribute(objectName, "LoadCount")).isEqualTo(1L);
+
+        underTest.stopping();
+        Assertions.assertThat(mBeanServer.isRegistered(objectName)).isFalse();
+    }
+}
@@ -11,12 +11,14 @@ import com.google.common.collect.Lists;
 import mockit.Expectations;
 import mockit.Injectable;
 import mockit.Mocked;
-import mockit.Tested;
+import mockit.Verifications;
 import org.assertj.core.api.Assertions;
+import org.junit.Before;
 import org.junit.Test;
 import org.seedstack.i18n.internal.domain.model.locale.Locale;
 import org.seedstack.i18n.internal.domain.model.locale.LocaleFactory;
 import org.seedstack.i18n.internal.domain.model.locale.LocaleRepository;
+import org.seedstack.i18n.internal.infrastructure.jpa.LocaleSnapshotCache;
 
 
 /**
@@ -30,7 +32,6 @@ public class ICULocaleServiceTest {
     private static final String FR = "fr";
     private static final String FR_BE = "fr-BE";
 
-    @Tested
     private ICULocaleService localeService;
     @Injectable
     private LocaleRepository localeRepository;
@@ -41,6 +42,12 @@ public class ICULocaleServiceTest {
     @Mocked
     private Locale locale;
 
+    @Before
+    public void before() {
+        localeService = new ICULocaleService(localeRepository, localeFactory,
+                new LocaleSnapshotCache(localeRepository));
+    }
+
     @Test
     public void testLocaleIsAvailableAcceptsNull() {
         boolean frIsAvailable = localeService.isAvailable(null);
@@ -73,8 +80,11 @@ public class ICULocaleServiceTest {
     public void getClosestLocaleReturnsActualLocale() {
         new Expectations() {
             {
-                localeRepository.contains(FR_BE);
-                result = true;
+                localeRepository.loadAll();
+                result = Lists.newArrayList(locale);
+
+                locale.getId();
+                result = FR_BE;
             }
         };
 
@@ -97,9 +107,6 @@ public class ICULocaleServiceTest {
 
                 locale.getId();
                 result = FR;
-
-                localeRepository.contains(FR_BE);
-                result = false;
             }
         };
 
@@ -116,9 +123,6 @@ public class ICULocaleServiceTest {
 
                 defaultLocale.getId();
                 result = FR;
-
-                localeRepository.contains("zzz");
-                result = false;
             }
         };
         String zzz = localeService.getClosestLocale("zzz");
@@ -129,11 +133,43 @@ public class ICULocaleServiceTest {
     public void getClosestLocale_is_null_when_no_default_locale() {
         new Expectations() {
             {
-                localeRepository.contains("zzz");
-                result = false;
+                localeRepository.getDefaultLocale();
+                result = null;
             }
         };
         String zzz = localeService.getClosestLocale("zzz");
         Assertions.assertThat(zzz).isNull();
     }
+
+    @Test
+    public void getClosestLocale_does_not_query_the_repository_twice() {
+        new Expectations() {
+            {
+                localeRepository.getDefaultLocale();
+                result = defaultLocale;
+
+                defaultLocale.getId();
+                result = EN;
+
+                localeRepository.loadAll();
+                result = Lists.newArrayList(locale);
+
+                locale.getId();
+                result = FR;
+            }
+        };
+
+        Assertions.assertThat(localeService.getClosestLocale(FR_BE)).isEqualTo(FR);
+        Assertions.assertThat(localeService.getClosestLocale(FR_BE)).isEqualTo(FR);
+        Assertions.assertThat(localeService.getClosestLocale(FR)).isEqualTo(FR);
+
+        new Verifications() {
+            {
+                localeRepository.loadAll();
+                times = 1;
+                localeRepository.getDefaultLocale();
+                times = 1;
+            }
+        };
+    }
 }
@@ -8,8 +8,14 @@
 package org.seedstack.i18n.internal.infrastructure.service;
 
 import static org.mockito.Mockito.mock;
+import static org.assertj.core.api.Assertions.entry;
 import static org.mockito.Mockito.when;
 
+import com.google.common.collect.Lists;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.Optional;
 import mockit.Deencapsulation;
 import org.assertj.core.api.Assertions;
@@ -19,7 +25,10 @@ import org.seedstack.i18n.I18nConfig;
 import org.seedstack.i18n.LocalizationService;
 import org.seedstack.i18n.internal.domain.model.key.Key;
 import org.seedstack.i18n.internal.domain.model.key.KeyRepository;
+import org.seedstack.i18n.internal.domain.model.locale.LocaleRepository;
 import org.seedstack.i18n.internal.domain.service.TranslationService;
+import org.seedstack.i18n.internal.infrastructure.jpa.LocaleSnapshotCache;
+import org.seedstack.i18n.internal.infrastructure.jpa.TranslationSnapshotCache;
 
 /**
  * @author pierre.thirouin@ext.mpsa.com
@@ -40,9 +49,14 @@ public class ICULocalizationServiceTest {
         localeService = mock(ICULocaleService.class);
         mockLocaleService();
         keyRepository = mock(KeyRepository.class);
-        TranslationService translationService = new TranslationServiceImpl(keyRepository, localeService);
+        TranslationSnapshotCache translationSnapshotCache = new TranslationSnapshotCache(keyRepository);
+        FallbackChainCache fallbackChainCache = new FallbackChainCache(
+                new LocaleSnapshotCache(mock(LocaleRepository.class)));
+        TranslationService translationService = new TranslationServiceImpl(keyRepository, localeService,
+                translationSnapshotCache, fallbackChainCache, () -> null);
         Deencapsulation.setField(translationService, "i18nConfig", new I18nConfig());
-        localizationService = new ICULocalizationService(localeService, translationService);
+        localizationService = new ICULocalizationService(localeService, translationService, translationSnapshotCache,
+                new MessageFormatCache(), new FormatterCache());
     }
 
     @Test
@@ -58,6 +72,7 @@ public class ICULocalizationServiceTest {
         Key key1 = new Key(KEY);
         key1.addTranslation(locale, value);
         when(keyRepository.get(KEY)).thenReturn(Optional.of(key1));
+        when(keyRepository.loadAll()).thenReturn(Lists.newArrayList(key1));
     }
 
     @Test
@@ -71,7 +86,9 @@ public class ICULocalizationServiceTest {
 
     @Test
     public void localization_translation_not_found() {
-        when(keyRepository.get(KEY)).thenReturn(Optional.of(new Key(KEY)));
+        Key key = new Key(KEY);
+        when(keyRepository.get(KEY)).thenReturn(Optional.of(key));
+        when(keyRepository.loadAll()).thenReturn(Lists.newArrayList(key));
 
         String localize = localizationService.localize(FR_BE, KEY);
 
@@ -87,6 +104,59 @@ public class ICULocalizationServiceTest {
         Assertions.assertThat(localize).isEqualTo("Bonjour Bruxelles!");
     }
 
+    @Test
+    public void localization_into_appendable() throws IOException {
+        addTranslation(FR_BE, TRANSLATION_WITH_ARGUMENTS);
+        StringBuilder sb = new StringBuilder("> ");
+
+        localizationService.localizeTo(sb, FR_BE, KEY, "Bruxelles!");
+        localizationService.localizeTo(sb.append(' '), FR_BE, "unknown");
+
+        Assertions.assertThat(sb.toString()).isEqualTo("> Bonjour Bruxelles! [unknown]");
+    }
+
+    @Test
+    public void number_formatting_into_appendable() throws IOException {
+        StringBuilder sb = new StringBuilder();
+
+        localizationService.formatNumberTo(sb, FR, 1234.5);
+
+        Assertions.assertThat(sb.toString()).isEqualTo(localizationService.formatNumber(FR, 1234.5));
+    }
+
+    @Test
+    public void localization_of_several_keys() {
+        addTranslation(FR, FR_TRANSLATION);
+
+        Map<String, String> localized = localizationService.localizeAll(FR_BE, Lists.newArrayList("unknown", KEY));
+
+        Assertions.assertThat(localized).containsExactly(entry("unknown", "[unknown]"), entry(KEY, FR_TRANSLATION));
+    }
+
+    @Test
+    public void missing_keys_share_their_placeholder() {
+        addTranslation(FR, FR_TRANSLATION);
+        String placeholder = localizationService.localize(FR_BE, "unknown");
+
+        Assertions.assertThat(localizationService.localizeAll(FR_BE, Lists.newArrayList("unknown")).get("unknown"))
+                .isSameAs(placeholder);
+        Assertions.assertThat(localizationService.localizeAll(FR_BE, Collections.singletonMap("unknown", null))
+                .get("unknown")).isSameAs(placeholder);
+    }
+
+    @Test
+    public void localization_of_several_keys_with_arguments() {
+        addTranslation(FR_BE, TRANSLATION_WITH_ARGUMENTS);
+        Map<String, Object[]> keysWithArgs = new LinkedHashMap<>();
+        keysWithArgs.put(KEY, new Object[]{"Bruxelles!"});
+        keysWithArgs.put("unknown", null);
+
+        Map<String, String> localized = localizationService.localizeAll(FR_BE, keysWithArgs);
+
+        Assertions.assertThat(localized)
+                .containsExactly(entry(KEY, "Bonjour Bruxelles!"), entry("unknown", "[unknown]"));
+    }
+
     private void mockLocaleService() {
         when(localeService.getClosestLocale(FR_BE)).thenReturn(FR_BE);
         when(localeService.getClosestLocale(FR)).thenReturn(FR);
@@ -0,0 +1,72 @@
+/*
+ * Copyright © 2013-2020, The SeedStack authors <http://seedstack.org>
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.seedstack.i18n.internal.infrastructure.service;
+
+import com.ibm.icu.text.MessageFormat;
+import com.ibm.icu.util.ULocale;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Compares the formatting of a message with positional arguments through ICU and through the simple
+ * template fast path. Run it with the main method from the test classpath.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MessageFormatBenchmark {
+    private static final ULocale FR = new ULocale("fr");
+    private static final String KEY = "key";
+    private static final String PATTERN = "Bonjour {0}, vous avez {1} nouveaux messages dans {2}";
+    private static final Object[] ARGS = new Object[]{"Jean", "12", "votre boîte de réception"};
+
+    private final MessageFormatCache messageFormatCache = new MessageFormatCache();
+    private final MessageFormat messageFormat = new MessageFormat(PATTERN, FR);
+
+    /**
+     * Formatting before any caching: the message is compiled by ICU on each call.
+     */
+    @Benchmark
+    public String icuUncached() {
+        return new MessageFormat(PATTERN, FR).format(ARGS);
+    }
+
+    /**
+     * Formatting with a compiled ICU message cloned on each call.
+     */
+    @Benchmark
+    public String icuCached() {
+        return ((MessageFormat) messageFormat.clone()).format(ARGS);
+    }
+
+    /**
+     * Formatting through the message format cache, which uses the simple template fast path.
+     */
+    @Benchmark
+    public String simpleTemplate() {
+        return messageFormatCache.format(FR, KEY, PATTERN, ARGS);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(MessageFormatBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,54 @@
+/*
+ * Copyright © 2013-2020, The SeedStack authors <http://seedstack.org>
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.seedstack.i18n.internal.infrastructure.service;
+
+import com.ibm.icu.text.MessageFormat;
+import com.ibm.icu.util.ULocale;
+import java.io.IOException;
+import org.assertj.core.api.Assertions;
+import org.junit.Test;
+
+public class MessageFormatCacheTest {
+    private static final ULocale FR = new ULocale("fr");
+    private static final String KEY = "key";
+
+    private final MessageFormatCache underTest = new MessageFormatCache();
+
+    @Test
+    public void format_reuses_compiled_message() {
+        Assertions.assertThat(underTest.format(FR, KEY, "Bonjour {0}", new Object[]{"Paris"}))
+                .isEqualTo("Bonjour Paris");
+        Assertions.assertThat(underTest.format(FR, KEY, "Bonjour {0}", new Object[]{"Bruxelles"}))
+                .isEqualTo("Bonjour Bruxelles");
+    }
+
+    @Test
+    public void format_recompiles_changed_translation() {
+        underTest.format(FR, KEY, "Bonjour {0}", new Object[]{"Paris"});
+
+        Assertions.assertThat(underTest.format(FR, KEY, "Salut {0}", new Object[]{"Paris"}))
+                .isEqualTo("Salut Paris");
+    }
+
+    @Test
+    public void format_falls_back_to_icu_for_non_textual_arguments() {
+        Assertions.assertThat(underTest.format(FR, KEY, "{0} habitants", new Object[]{2000000}))
+                .isEqualTo(new MessageFormat("{0} habitants", FR).format(new Object[]{2000000}));
+    }
+
+    @Test
+    public void format_into_appendable_reuses_the_buffer_of_the_thread() throws IOException {
+        StringBuilder sb = new StringBuilder("> ");
+
+        underTest.formatTo(FR, KEY, "{0} habitants", new Object[]{2000000}, sb);
+        underTest.formatTo(FR, KEY, "{0} habitants", new Object[]{3}, sb.append(", "));
+
+        Assertions.assertThat(sb.toString()).isEqualTo("> " + underTest.format(FR, KEY, "{0} habitants",
+                new Object[]{2000000}) + ", 3 habitants");
+    }
+}
@@ -0,0 +1,65 @@
+/*
+ * Copyright © 2013-2020, The SeedStack authors <http://seedstack.org>
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.seedstack.i18n.internal.infrastructure.service;
+
+import com.ibm.icu.text.MessageFormat;
+import com.ibm.icu.util.ULocale;
+import java.io.IOException;
+import org.assertj.core.api.Assertions;
+import org.junit.Test;
+
+public class SimpleMessageTemplateTest {
+    private static final Object[] ARGS = new Object[]{"Paris", "Bruxelles"};
+
+    @Test
+    public void positional_arguments_are_simple() {
+        assertSameAsIcu("Bonjour {0}");
+        assertSameAsIcu("{1} et {0}");
+        assertSameAsIcu("{0}{0}, {1}!");
+        assertSameAsIcu("Pas d'argument");
+        assertSameAsIcu("L'adresse de {0}'");
+    }
+
+    @Test
+    public void other_patterns_require_icu() {
+        Assertions.assertThat(SimpleMessageTemplate.compile("Aujourd''hui {0}")).isNull();
+        Assertions.assertThat(SimpleMessageTemplate.compile("'{0}' {1}")).isNull();
+        Assertions.assertThat(SimpleMessageTemplate.compile("{0,number,integer}")).isNull();
+        Assertions.assertThat(SimpleMessageTemplate.compile("{0, plural, one {# ville} other {# villes}}")).isNull();
+        Assertions.assertThat(SimpleMessageTemplate.compile("{name}")).isNull();
+        Assertions.assertThat(SimpleMessageTemplate.compile("Bonjour {0")).isNull();
+        Assertions.assertThat(SimpleMessageTemplate.compile("Bonjour 0}")).isNull();
+    }
+
+    @Test
+    public void non_textual_arguments_require_icu() {
+        SimpleMessageTemplate template = SimpleMessageTemplate.compile("{0} {1}");
+
+        Assertions.assertThat(template.canFormat(ARGS)).isTrue();
+        Assertions.assertThat(template.canFormat(new Object[]{"Paris", 1000})).isFalse();
+        Assertions.assertThat(template.canFormat(new Object[]{"Paris", null})).isFalse();
+        Assertions.assertThat(template.canFormat(new Object[]{"Paris"})).isFalse();
+    }
+
+    @Test
+    public void format_into_appendable() throws IOException {
+        StringBuilder buffer = new StringBuilder("> ");
+
+        SimpleMessageTemplate.compile("{1} et {0}").formatTo(ARGS, buffer);
+
+        Assertions.assertThat(buffer.toString()).isEqualTo("> Bruxelles et Paris");
+    }
+
+    private void assertSameAsIcu(String pattern) {
+        SimpleMessageTemplate template = SimpleMessageTemplate.compile(pattern);
+
+        Assertions.assertThat(template).isNotNull();
+        Assertions.assertThat(template.format(ARGS))
+                .isEqualTo(new MessageFormat(pattern, ULocale.FRENCH).format(ARGS));
+    }
+}
@@ -9,13 +9,17 @@ package org.seedstack.i18n.internal.infrastructure.service;
 
 import static org.junit.Assert.fail;
 
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
 import com.google.common.collect.Lists;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.Map;
 import java.util.Optional;
 import mockit.Deencapsulation;
 import mockit.Expectations;
 import mockit.Mocked;
-import mockit.Tested;
 import org.assertj.core.api.Assertions;
 import org.junit.Before;
 import org.junit.Test;
@@ -23,6 +27,12 @@ import org.seedstack.i18n.I18nConfig;
 import org.seedstack.i18n.LocaleService;
 import org.seedstack.i18n.internal.domain.model.key.Key;
 import org.seedstack.i18n.internal.domain.model.key.KeyRepository;
+import org.seedstack.i18n.internal.domain.model.key.Translation;
+import org.seedstack.i18n.internal.domain.model.locale.Locale;
+import org.seedstack.i18n.internal.domain.model.locale.LocaleRepository;
+import org.seedstack.i18n.internal.infrastructure.jpa.LocaleSnapshotCache;
+import org.seedstack.i18n.internal.infrastructure.jpa.TranslationBundle;
+import org.seedstack.i18n.internal.infrastructure.jpa.TranslationSnapshotCache;
 
 /**
  * @author pierre.thirouin@ext.mpsa.com
@@ -37,16 +47,29 @@ public class TranslationServiceImplTest {
     private static final String KEY = "key";
     private static final String KEY1 = "key1";
     private static final String KEY2 = "key2";
-    @Tested
     private TranslationServiceImpl underTest;
+    private LoadingCache<String, TranslationBundle> translationBundles;
     @Mocked
     private LocaleService localeService;
     @Mocked
     private KeyRepository keyRepository;
+    @Mocked
+    private LocaleRepository localeRepository;
+    @Mocked
+    private Locale defaultLocale;
 
     @Before
     public void before() {
-        underTest = new TranslationServiceImpl(keyRepository, localeService);
+        translationBundles = CacheBuilder.newBuilder().recordStats().build(
+                new CacheLoader<String, TranslationBundle>() {
+                    @Override
+                    public TranslationBundle load(String locale) {
+                        return new TranslationBundle(underTest.loadTranslationsForLocale(locale));
+                    }
+                });
+        underTest = new TranslationServiceImpl(keyRepository, localeService,
+                new TranslationSnapshotCache(keyRepository),
+                new FallbackChainCache(new LocaleSnapshotCache(localeRepository)), () -> translationBundles);
     }
 
     @Test
@@ -73,11 +96,23 @@ public class TranslationServiceImplTest {
     }
 
     private void addKeys(final Key... keys) {
+        final Map<String, Map<String, String>> translationsByKey = new HashMap<>();
+        for (Key key : keys) {
+            Map<String, String> translations = new HashMap<>();
+            for (Map.Entry<String, Translation> translation : key.getTranslations().entrySet()) {
+                translations.put(translation.getKey(), translation.getValue().getValue());
+            }
+            translationsByKey.put(key.getId(), translations);
+        }
         new Expectations() {
             {
                 keyRepository.loadAll();
                 result = Lists.newArrayList(keys);
                 minTimes = 0;
+
+                keyRepository.loadTranslations((Collection<String>) any);
+                result = translationsByKey;
+                minTimes = 0;
             }
         };
     }
@@ -112,6 +147,17 @@ public class TranslationServiceImplTest {
         Assertions.assertThat(translationsForLocale).containsEntry(KEY2, FR_BE_TRANSLATION);
     }
 
+    @Test
+    public void translationsAreServedFromCache() {
+        addKeys(addTranslation(KEY1, FR_BE, FR_BE_TRANSLATION));
+
+        Map<String, String> translationsForLocale = underTest.getTranslationsForLocale(FR_BE);
+
+        Assertions.assertThat(underTest.getTranslationsForLocale(FR_BE)).isSameAs(translationsForLocale);
+        Assertions.assertThat(translationBundles.stats().loadCount()).isEqualTo(1);
+        Assertions.assertThat(translationBundles.stats().hitCount()).isEqualTo(1);
+    }
+
     @Test
     public void testGetTranslationsWithFallBack() {
         addKeys(addTranslation(KEY1, FR, FR_TRANSLATION));
@@ -128,7 +174,10 @@ public class TranslationServiceImplTest {
 
         new Expectations() {
             {
-                localeService.getDefaultLocale();
+                localeRepository.getDefaultLocale();
+                result = defaultLocale;
+
+                defaultLocale.getId();
                 result = EN;
             }
         };
@@ -16,6 +16,7 @@ import org.seedstack.i18n.internal.domain.model.key.Key;
 import org.seedstack.i18n.internal.domain.model.key.Translation;
 import org.seedstack.i18n.internal.domain.model.key.TranslationId;
 import org.seedstack.i18n.internal.domain.model.locale.Locale;
+import org.seedstack.i18n.internal.infrastructure.jpa.ChangeLogEntry;
 
 import java.util.EnumSet;
 import java.util.HashMap;
@@ -57,6 +58,7 @@ public class SchemaGenerator {
         metadata.addAnnotatedClass(TranslationId.class);
         metadata.addAnnotatedClass(Locale.class);
         metadata.addAnnotatedClass(Key.class);
+        metadata.addAnnotatedClass(ChangeLogEntry.class);
         return metadata;
     }
 }
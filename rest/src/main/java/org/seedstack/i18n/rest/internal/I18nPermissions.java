@@ -23,4 +23,6 @@ public class I18nPermissions {
     public static final String TRANSLATION_READ = "seed:i18n:translation:read";
     public static final String TRANSLATION_WRITE = "seed:i18n:translation:write";
     public static final String TRANSLATION_DELETE = "seed:i18n:translation:delete";
+
+    public static final String CACHE_READ = "seed:i18n:cache:read";
 }
@@ -7,18 +7,32 @@
  */
 package org.seedstack.i18n.rest.internal.messages;
 
-import com.google.common.base.Strings;
-import org.seedstack.i18n.LocaleService;
-import org.seedstack.i18n.internal.domain.service.TranslationService;
+import com.google.common.cache.LoadingCache;
+import org.seedstack.i18n.internal.infrastructure.jpa.LocaleSnapshot;
+import org.seedstack.i18n.internal.infrastructure.jpa.LocaleSnapshotCache;
+import org.seedstack.i18n.internal.infrastructure.jpa.TranslationBundle;
+import org.seedstack.i18n.internal.infrastructure.jpa.TranslationHistory;
+import org.seedstack.i18n.internal.infrastructure.jpa.TranslationVersions;
+import org.seedstack.i18n.rest.internal.shared.NotFoundException;
 
 import javax.inject.Inject;
 import javax.ws.rs.GET;
+import javax.ws.rs.HeaderParam;
 import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
+import javax.ws.rs.core.CacheControl;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.EntityTag;
+import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Request;
 import javax.ws.rs.core.Response;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -28,37 +42,192 @@ import java.util.Map;
  */
 @Path("/seed-i18n/messages")
 public class MessageResource {
+    private static final CacheControl CACHE_CONTROL = revalidated();
+    private static final String GZIP = "gzip";
+    private static final String GZIP_TAG_SUFFIX = "-gzip";
 
     @Inject
-    private TranslationService messageService;
-
+    private LoadingCache<String, TranslationBundle> translationBundles;
+    @Inject
+    private SerializedMessages serializedMessages;
+    @Inject
+    private TranslationHistory translationHistory;
     @Inject
-    private LocaleService localeService;
+    private LocaleSnapshotCache localeSnapshotCache;
+    @Inject
+    private TranslationVersions translationVersions;
 
     /**
-     * Returns a map of key, translation for the given locale.
+     * Returns a map of key, translation for the given locale. The response is tagged with the version of
+     * the translations, so clients can revalidate it with an {@code If-None-Match} header. It is compressed
+     * with gzip if the client accepts it.
+     * <p>
+     * With a {@code since} parameter, only the messages changed since the given version are returned, see
+     * {@link MessagesDeltaRepresentation}. Clients without version start with an empty one. Versions are
+     * specific to the node which returned them, so behind a load balancer deltas require sticky sessions,
+     * otherwise the whole messages are returned.
+     * </p>
+     * <p>
+     * With one or more {@code prefix} parameters, only the messages whose key starts with one of the
+     * prefixes are returned. They are tagged and cached independently of the other messages.
+     * </p>
+     * <p>
+     * Only the available locales are served, so that requests for arbitrary locales don't fill the cache.
+     * Revalidations of the messages held by the cache are answered from their registered version, without
+     * reading the locales nor loading the messages.
+     * </p>
      *
-     * @param locale locale identifier
-     * @return status code 200 with all application messages or "{}" if no message
+     * @param locale         locale identifier
+     * @param since          the version of the messages known by the client
+     * @param prefixes       the prefixes of the requested keys
+     * @param acceptEncoding the encodings accepted by the client
+     * @param request        the request, used to evaluate the preconditions
+     * @return status code 200 with all application messages or "{}" if no message, status code 304 if the
+     * messages did not change since the version known by the client, status code 200 with the changed
+     * messages if a version is given, status code 404 if the locale is not available
      */
     @GET
     @Path("/{locale}")
     @Produces(MediaType.APPLICATION_JSON)
-    public Response getTranslations(@PathParam("locale") String locale) {
-        Map<String, String> messages = getMessages(locale);
-        if (!messages.isEmpty()) {
-			return Response.ok(messages).build();
-		}
-        return Response.ok("{}").build();
+    public Response getTranslations(@PathParam("locale") String locale, @QueryParam("since") String since,
+            @QueryParam("prefix") List<String> prefixes,
+            @HeaderParam(HttpHeaders.ACCEPT_ENCODING) String acceptEncoding, @Context Request request) {
+        boolean gzip = acceptsGzip(acceptEncoding);
+        if (since == null) {
+            // Revalidations of cached messages are answered without reading the locales nor loading the bundle
+            String cachedVersion = translationVersions.getVersion(locale, prefixes);
+            if (cachedVersion != null) {
+                Response.ResponseBuilder notModified = request.evaluatePreconditions(entityTag(cachedVersion, gzip));
+                if (notModified != null) {
+                    return notModified(notModified);
+                }
+            }
+        }
+        LocaleSnapshot localeSnapshot = localeSnapshotCache.get();
+        if (!localeSnapshot.isAvailable(locale)) {
+            if (localeSnapshot.getDefaultLocale() == null) {
+                // The application is not configured yet
+                return Response.ok("{}").build();
+            }
+            throw new NotFoundException("The locale " + locale + " is not available");
+        }
+        if (since != null) {
+            return Response.ok(getDelta(locale, since, prefixes)).cacheControl(CACHE_CONTROL).build();
+        }
+        TranslationBundle.Content content = getContent(locale, translationBundles.getUnchecked(locale), prefixes);
+        Response.ResponseBuilder notModified = request.evaluatePreconditions(entityTag(content.getVersion(), gzip));
+        if (notModified != null) {
+            return notModified(notModified);
+        }
+
+        // Bytes are written as is by the JAX-RS runtime, the container must not compress them again
+        Response.ResponseBuilder response = Response.ok(serializedMessages.get(content, gzip))
+                .tag(entityTag(content.getVersion(), gzip))
+                .cacheControl(CACHE_CONTROL)
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (gzip) {
+            response.header(HttpHeaders.CONTENT_ENCODING, GZIP);
+        }
+        return response.build();
     }
 
-    public Map<String, String> getMessages(String locale) {
-        // If the default locale is not available, then the application is not configured
-        if (!Strings.isNullOrEmpty(localeService.getDefaultLocale())) {
-            return messageService.getTranslationsForLocale(locale);
-        } else {
-            return new HashMap<>();
+    private static Response notModified(Response.ResponseBuilder notModified) {
+        return notModified.cacheControl(CACHE_CONTROL).header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING).build();
+    }
+
+    private TranslationBundle.Content getContent(String locale, TranslationBundle bundle, List<String> prefixes) {
+        TranslationBundle.Content content = bundle.getContent();
+        if (prefixes.isEmpty()) {
+            return content;
+        }
+        TranslationBundle.Content filteredContent = content.filter(prefixes);
+        translationVersions.filtered(locale, content, prefixes, filteredContent);
+        return filteredContent;
+    }
+
+    private MessagesDeltaRepresentation getDelta(String locale, String since, List<String> prefixes) {
+        // The version is read before the messages, which may then include more recent changes but no older
+        TranslationHistory.Delta delta = translationHistory.getChangesSince(since);
+        if (delta == null) {
+            String version = translationHistory.getVersion();
+            Map<String, String> messages = getContent(locale, translationBundles.getUnchecked(locale), prefixes)
+                    .getTranslations();
+            return new MessagesDeltaRepresentation(version, true, messages, Collections.emptyList());
+        }
+
+        Map<String, String> messages = translationBundles.getUnchecked(locale).getContent().getTranslations();
+        Map<String, String> changedMessages = new HashMap<>();
+        List<String> deletedKeys = new ArrayList<>();
+        for (String keyId : delta.getKeyIds()) {
+            if (!hasPrefix(keyId, prefixes)) {
+                continue;
+            }
+            String message = messages.get(keyId);
+            if (message != null) {
+                changedMessages.put(keyId, message);
+            } else {
+                deletedKeys.add(keyId);
+            }
         }
+        return new MessagesDeltaRepresentation(delta.getVersion(), false, changedMessages, deletedKeys);
     }
 
+    private static boolean hasPrefix(String keyId, List<String> prefixes) {
+        if (prefixes.isEmpty()) {
+            return true;
+        }
+        for (String prefix : prefixes) {
+            if (keyId.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static EntityTag entityTag(String version, boolean gzip) {
+        // Representations with different encodings must have different strong tags
+        return new EntityTag(gzip ? version + GZIP_TAG_SUFFIX : version);
+    }
+
+    static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parameters = coding.split(";");
+            if (GZIP.equalsIgnoreCase(parameters[0].trim())) {
+                for (int i = 1; i < parameters.length; i++) {
+                    String parameter = parameters[i].trim();
+                    if (parameter.startsWith("q=") && isZero(parameter.substring(2).trim())) {
+                        return false;
+                    }
+                }
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isZero(String qValue) {
+        try {
+            return Double.parseDouble(qValue) == 0;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    private static CacheControl revalidated() {
+        // Browsers keep the messages but check they are up to date on each use
+        CacheControl cacheControl = new CacheControl();
+        cacheControl.setNoCache(true);
+        return cacheControl;
+    }
+
+    public Map<String, String> getMessages(String locale) {
+        if (!localeSnapshotCache.get().isAvailable(locale)) {
+            return Collections.emptyMap();
+        }
+        // Bundles are empty if the default locale is not available, as the application is not configured
+        return translationBundles.getUnchecked(locale).getContent().getTranslations();
+    }
 }
@@ -0,0 +1,72 @@
+/*
+ * Copyright © 2013-2020, The SeedStack authors <http://seedstack.org>
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.seedstack.i18n.rest.internal.messages;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The messages of a locale which changed since a version known by the client.
+ */
+public class MessagesDeltaRepresentation {
+
+    private String version;
+
+    private boolean full;
+
+    private Map<String, String> messages;
+
+    private List<String> deleted;
+
+    public MessagesDeltaRepresentation() {
+    }
+
+    MessagesDeltaRepresentation(String version, boolean full, Map<String, String> messages, List<String> deleted) {
+        this.version = version;
+        this.full = full;
+        this.messages = messages;
+        this.deleted = deleted;
+    }
+
+    /**
+     * Gets the version to send on the next synchronization.
+     *
+     * @return the version of the messages
+     */
+    public String getVersion() {
+        return version;
+    }
+
+    /**
+     * Indicates whether the messages replace all the messages known by the client, because its version
+     * was too old or unknown.
+     *
+     * @return true if all the messages are returned, false if only the changed ones are
+     */
+    public boolean isFull() {
+        return full;
+    }
+
+    /**
+     * Gets the added or changed messages.
+     *
+     * @return the messages by key
+     */
+    public Map<String, String> getMessages() {
+        return messages;
+    }
+
+    /**
+     * Gets the keys of the deleted messages.
+     *
+     * @return the deleted keys
+     */
+    public List<String> getDeleted() {
+        return deleted;
+    }
+}
@@ -0,0 +1,142 @@
+/*
+ * Copyright © 2013-2020, The SeedStack authors <http://seedstack.org>
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.seedstack.i18n.rest.internal.messages;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import org.seedstack.i18n.internal.infrastructure.jpa.TranslationBundle;
+
+import javax.inject.Singleton;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Caches the JSON representation of each version of the translation bundles, as UTF-8 bytes and their
+ * gzip variant, so serving a bundle which did not change is a simple byte copy.
+ * <p>
+ * Entries are weakly bound to the bundle content they represent: they are dropped once a bundle is
+ * patched or evicted.
+ * </p>
+ */
+@Singleton
+class SerializedMessages {
+    private final Cache<TranslationBundle.Content, Serialized> cache = CacheBuilder.newBuilder()
+            .weakKeys()
+            .build();
+
+    /**
+     * Returns the JSON representation of the given bundle content.
+     *
+     * @param content the bundle content
+     * @param gzip    true to get the gzip-compressed variant
+     * @return the UTF-8 JSON bytes, compressed if requested
+     */
+    byte[] get(TranslationBundle.Content content, boolean gzip) {
+        Serialized serialized;
+        try {
+            serialized = cache.get(content, () -> new Serialized(toJson(content.getTranslations())));
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Unable to serialize the messages", e.getCause());
+        }
+        return gzip ? serialized.getGzip() : serialized.json;
+    }
+
+    static byte[] toJson(Map<String, String> messages) {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream(messages.size() * 32 + 2);
+        try (Writer writer = new OutputStreamWriter(outputStream, StandardCharsets.UTF_8)) {
+            writer.write('{');
+            boolean first = true;
+            for (Map.Entry<String, String> message : messages.entrySet()) {
+                if (!first) {
+                    writer.write(',');
+                }
+                first = false;
+                writeString(writer, message.getKey());
+                writer.write(':');
+                writeString(writer, message.getValue());
+            }
+            writer.write('}');
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return outputStream.toByteArray();
+    }
+
+    private static void writeString(Writer writer, String value) throws IOException {
+        writer.write('"');
+        int literalStart = 0;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            String escape = escape(c);
+            if (escape != null) {
+                writer.write(value, literalStart, i - literalStart);
+                writer.write(escape);
+                literalStart = i + 1;
+            }
+        }
+        writer.write(value, literalStart, value.length() - literalStart);
+        writer.write('"');
+    }
+
+    private static String escape(char c) {
+        switch (c) {
+            case '"':
+                return "\\\"";
+            case '\\':
+                return "\\\\";
+            case '\n':
+                return "\\n";
+            case '\r':
+                return "\\r";
+            case '\t':
+                return "\\t";
+            case '\u2028':
+            case '\u2029':
+                // Valid in JSON but not in JavaScript strings
+                return String.format("\\u%04x", (int) c);
+            default:
+                return c < 0x20 ? String.format("\\u%04x", (int) c) : null;
+        }
+    }
+
+    private static byte[] gzip(byte[] bytes) {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream(bytes.length / 4 + 64);
+        try (GZIPOutputStream gzipOutputStream = new GZIPOutputStream(outputStream)) {
+            gzipOutputStream.write(bytes);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return outputStream.toByteArray();
+    }
+
+    private static class Serialized {
+        private final byte[] json;
+        private volatile byte[] gzip;
+
+        private Serialized(byte[] json) {
+            this.json = json;
+        }
+
+        private byte[] getGzip() {
+            // Only compressed for the clients accepting it, concurrent compressions give the same bytes
+            byte[] current = gzip;
+            if (current == null) {
+                current = gzip(json);
+                gzip = current;
+            }
+            return current;
+        }
+    }
+}
@@ -0,0 +1,60 @@
+/*
+ * Copyright © 2013-2020, The SeedStack authors <http://seedstack.org>
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.seedstack.i18n.rest.internal.statistic;
+
+import javax.inject.Inject;
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.PathParam;
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import org.seedstack.i18n.internal.infrastructure.service.CacheStatistics;
+import org.seedstack.i18n.internal.infrastructure.service.I18nCacheMonitor;
+import org.seedstack.i18n.rest.internal.I18nPermissions;
+import org.seedstack.seed.security.RequiresPermissions;
+
+/**
+ * This REST resource provides the hit rate, load time, evictions and size of the i18n caches.
+ */
+@Path("/seed-i18n/cache-statistics")
+public class CacheStatisticResource {
+
+    @Inject
+    private I18nCacheMonitor i18nCacheMonitor;
+
+    /**
+     * Returns the statistics of each cache, indexed by cache name.
+     *
+     * @return 200 - the statistics
+     */
+    @GET
+    @Produces(MediaType.APPLICATION_JSON)
+    @RequiresPermissions(I18nPermissions.CACHE_READ)
+    public Response getStatistics() {
+        return Response.ok(i18nCacheMonitor.getStatistics()).build();
+    }
+
+    /**
+     * Returns the statistics of the given cache.
+     *
+     * @param name the cache name
+     * @return 200 - the statistics or 404 if the cache is unknown
+     */
+    @GET
+    @Path("/{name}")
+    @Produces(MediaType.APPLICATION_JSON)
+    @RequiresPermissions(I18nPermissions.CACHE_READ)
+    public Response getStatistics(@PathParam("name") String name) {
+        if (!I18nCacheMonitor.CACHE_NAMES.contains(name)) {
+            return Response.status(Response.Status.NOT_FOUND).build();
+        }
+        CacheStatistics statistics = i18nCacheMonitor.getStatistics(name);
+        return Response.ok(statistics).build();
+    }
+}
@@ -0,0 +1,48 @@
+/*
+ * Copyright © 2013-2020, The SeedStack authors <http://seedstack.org>
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.seedstack.i18n.internal.rest;
+
+import io.restassured.response.Response;
+import org.assertj.core.api.Assertions;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.junit.Test;
+import org.seedstack.i18n.internal.infrastructure.service.I18nCacheMonitor;
+import org.seedstack.i18n.shared.AbstractI18nRestIT;
+
+public class CacheStatisticResourceIT extends AbstractI18nRestIT {
+
+    @Test
+    public void get_cache_statistics() throws JSONException {
+        httpGet("messages/en", 200);
+
+        Response response = httpGet("cache-statistics", 200);
+        JSONObject result = new JSONObject(response.asString());
+
+        Assertions.assertThat(result.length()).isEqualTo(I18nCacheMonitor.CACHE_NAMES.size());
+        for (String name : I18nCacheMonitor.CACHE_NAMES) {
+            Assertions.assertThat(result.has(name)).isTrue();
+        }
+        Assertions.assertThat(result.has(I18nCacheMonitor.FALLBACK_CHAINS)).isTrue();
+        Assertions.assertThat(result.has(I18nCacheMonitor.CLOSEST_LOCALES)).isTrue();
+        JSONObject translationBundles = result.getJSONObject("translationBundles");
+        Assertions.assertThat(translationBundles.getLong("estimatedSize")).isGreaterThanOrEqualTo(1);
+        Assertions.assertThat(translationBundles.getLong("loadCount")).isGreaterThanOrEqualTo(1);
+        Assertions.assertThat(translationBundles.has("hitRate")).isTrue();
+        Assertions.assertThat(translationBundles.has("averageLoadTime")).isTrue();
+        Assertions.assertThat(translationBundles.has("evictionCount")).isTrue();
+    }
+
+    @Test
+    public void get_statistics_of_one_cache() throws JSONException {
+        JSONObject result = new JSONObject(httpGet("cache-statistics/formatters", 200).asString());
+
+        Assertions.assertThat(result.getString("name")).isEqualTo("formatters");
+        httpGet("cache-statistics/unknown", 404);
+    }
+}
@@ -7,8 +7,17 @@
  */
 package org.seedstack.i18n.internal.rest;
 
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.restassured.response.Response;
+import java.util.Iterator;
+import java.util.UUID;
 import org.json.JSONException;
+import org.json.JSONObject;
 import org.junit.Test;
+import org.seedstack.i18n.rest.internal.key.KeyRepresentation;
 import org.seedstack.i18n.shared.AbstractI18nRestIT;
 
 /**
@@ -20,4 +29,46 @@ public class MessageResourcesIT extends AbstractI18nRestIT {
     public void getTranslations() throws JSONException {
         httpGet("messages/en", 200);
     }
+
+    @Test
+    public void unchanged_translations_are_not_sent_again() throws JSONException {
+        Response response = httpGet("messages/en", 200);
+        String etag = response.header("ETag");
+        assertThat(etag).isNotEmpty();
+        assertThat(response.header("Cache-Control")).contains("no-cache");
+
+        httpGetIfNoneMatch("messages/en", etag, 304);
+        httpGetIfNoneMatch("messages/en", "\"outdated\"", 200);
+    }
+
+    @Test
+    public void only_changed_translations_are_sent_since_a_version() throws JSONException, JsonProcessingException {
+        JSONObject full = new JSONObject(httpGet("messages/en?since=", 200).asString());
+        assertThat(full.getBoolean("full")).isTrue();
+        String version = full.getString("version");
+
+        String keyName = UUID.randomUUID().toString();
+        KeyRepresentation key = new KeyRepresentation(keyName, "en", "translation", "comment");
+        httpPost("keys", new ObjectMapper().writeValueAsString(key), 201);
+        JSONObject delta = new JSONObject(httpGet("messages/en?since=" + version, 200).asString());
+        assertThat(delta.getBoolean("full")).isFalse();
+        assertThat(delta.getJSONObject("messages").length()).isEqualTo(1);
+        assertThat(delta.getJSONObject("messages").getString(keyName)).isEqualTo("translation");
+
+        httpDelete("keys/" + keyName, 204);
+        delta = new JSONObject(httpGet("messages/en?since=" + delta.getString("version"), 200).asString());
+        assertThat(delta.getJSONObject("messages").length()).isEqualTo(0);
+        assertThat(delta.getJSONArray("deleted").getString(0)).isEqualTo(keyName);
+    }
+
+    @Test
+    public void translations_are_filtered_by_prefix() throws JSONException {
+        JSONObject messages = new JSONObject(httpGet("messages/en?prefix=test.&prefix=unknown.", 200).asString());
+
+        assertThat(messages.length()).isGreaterThan(0);
+        Iterator<?> keys = messages.keys();
+        while (keys.hasNext()) {
+            assertThat((String) keys.next()).startsWith("test.");
+        }
+    }
 }
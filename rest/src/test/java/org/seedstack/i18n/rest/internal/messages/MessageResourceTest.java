@@ -0,0 +1,27 @@
+/*
+ * Copyright © 2013-2020, The SeedStack authors <http://seedstack.org>
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.seedstack.i18n.rest.internal.messages;
+
+import org.assertj.core.api.Assertions;
+import org.junit.Test;
+
+public class MessageResourceTest {
+
+    @Test
+    public void gzip_is_used_when_accepted() {
+        Assertions.assertThat(MessageResource.acceptsGzip("gzip, deflate")).isTrue();
+        Assertions.assertThat(MessageResource.acceptsGzip("deflate, GZIP;q=0.5")).isTrue();
+    }
+
+    @Test
+    public void gzip_is_not_used_when_refused() {
+        Assertions.assertThat(MessageResource.acceptsGzip(null)).isFalse();
+        Assertions.assertThat(MessageResource.acceptsGzip("identity")).isFalse();
+        Assertions.assertThat(MessageResource.acceptsGzip("gzip;q=0")).isFalse();
+    }
+}
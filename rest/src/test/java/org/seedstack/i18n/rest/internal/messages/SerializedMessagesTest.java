@@ -0,0 +1,41 @@
+/*
+ * Copyright © 2013-2020, The SeedStack authors <http://seedstack.org>
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.seedstack.i18n.rest.internal.messages;
+
+import com.google.common.collect.ImmutableMap;
+import org.assertj.core.api.Assertions;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Map;
+
+public class SerializedMessagesTest {
+
+    @Test
+    public void empty_messages_are_an_empty_object() {
+        Assertions.assertThat(json(Collections.emptyMap())).isEqualTo("{}");
+    }
+
+    @Test
+    public void messages_are_escaped() throws JSONException {
+        String message = "Il a dit \"bonjour\"\\\n\tà\u0001 tous\u2028";
+
+        String json = json(ImmutableMap.of("key", message, "other.key", "ok"));
+
+        Assertions.assertThat(json).doesNotContain("\n", "\t", "\u0001", "\u2028");
+        Assertions.assertThat(new JSONObject(json).getString("key")).isEqualTo(message);
+        Assertions.assertThat(new JSONObject(json).getString("other.key")).isEqualTo("ok");
+    }
+
+    private String json(Map<String, String> messages) {
+        return new String(SerializedMessages.toJson(messages), StandardCharsets.UTF_8);
+    }
+}
@@ -60,6 +60,17 @@ public abstract class AbstractI18nRestIT {
         return httpRequest(statusCode, null).get(baseURL + "/" +PATH_PREFIX + path);
     }
 
+    /**
+     * Revalidates the resource at the path with the given entity tag and expect the given status code.
+     *
+     * @param path the resource URI
+     * @param etag the entity tag of the known representation
+     * @return the http response
+     */
+    protected Response httpGetIfNoneMatch(String path, String etag, int statusCode) {
+        return httpRequest(statusCode, null).header("If-None-Match", etag).get(baseURL + "/" + PATH_PREFIX + path);
+    }
+
     /**
      * Posts the body to the given path and expect a 200 status code.
      *
@@ -9,8 +9,12 @@ package org.seedstack.i18n;
 
 import org.seedstack.business.Service;
 
+import java.io.IOException;
 import java.text.ParseException;
+import java.util.Collection;
 import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 /**
  * This service provides common localization features according to a specified
@@ -45,6 +49,80 @@ public interface LocalizationService {
      */
     String localize(String locale, String key, Object... args);
 
+    /**
+     * Append a localized string based on the specified locale and key to the
+     * given appendable, without creating an intermediate string. The default
+     * implementation appends the result of {@link #localize(String, String)}.
+     *
+     * @param appendable The appendable receiving the translation result.
+     * @param locale     The locale identifier.
+     * @param key        The i18n key to translate.
+     * @throws IOException if the appendable cannot be written to
+     * @see LocalizationService#localize(String, String)
+     */
+    default void localizeTo(Appendable appendable, String locale, String key) throws IOException {
+        appendable.append(localize(locale, key));
+    }
+
+    /**
+     * Append a localized string based on the specified locale and key to the
+     * given appendable. The pattern is formatted according to the given arguments.
+     * The default implementation appends the result of
+     * {@link #localize(String, String, Object...)}.
+     *
+     * @param appendable The appendable receiving the translation result.
+     * @param locale     The locale identifier.
+     * @param key        The i18n key to translate.
+     * @param args       The arguments used for message formatting.
+     * @throws IOException if the appendable cannot be written to
+     * @see LocalizationService#localize(String, String, Object...)
+     */
+    default void localizeTo(Appendable appendable, String locale, String key, Object... args) throws IOException {
+        appendable.append(localize(locale, key, args));
+    }
+
+    /**
+     * Return the localized strings of several keys based on the specified locale.
+     * The closest locale and the parent locales are resolved once for all the
+     * keys, so this method should be preferred to repeated calls to
+     * {@link #localize(String, String)} when translating many keys at once.
+     * Keys without translation are associated to "[" + key + "]". The default
+     * implementation calls {@link #localize(String, String)} for each key.
+     *
+     * @param locale The locale identifier.
+     * @param keys   The i18n keys to translate.
+     * @return The translation results by key, in the iteration order of the given keys.
+     * @see LocalizationService#localize(String, String)
+     */
+    default Map<String, String> localizeAll(String locale, Collection<String> keys) {
+        Map<String, String> results = new LinkedHashMap<>();
+        for (String key : keys) {
+            results.put(key, localize(locale, key));
+        }
+        return results;
+    }
+
+    /**
+     * Return the localized strings of several keys based on the specified locale.
+     * Each pattern is formatted according to the arguments of its key, a null or
+     * empty array meaning that the key has no argument. The default implementation
+     * calls {@link #localize(String, String, Object...)} for each key.
+     *
+     * @param locale       The locale identifier.
+     * @param keysWithArgs The i18n keys to translate and their arguments used for message formatting.
+     * @return The translation results by key, in the iteration order of the given keys.
+     * @see LocalizationService#localizeAll(String, Collection)
+     */
+    default Map<String, String> localizeAll(String locale, Map<String, Object[]> keysWithArgs) {
+        Map<String, String> results = new LinkedHashMap<>();
+        for (Map.Entry<String, Object[]> keyWithArgs : keysWithArgs.entrySet()) {
+            Object[] args = keyWithArgs.getValue();
+            results.put(keyWithArgs.getKey(), args == null || args.length == 0
+                    ? localize(locale, keyWithArgs.getKey()) : localize(locale, keyWithArgs.getKey(), args));
+        }
+        return results;
+    }
+
     /**
      * Format a date using the specified locale.
      *
@@ -140,6 +218,20 @@ public interface LocalizationService {
      */
     String formatNumber(String locale, Number number);
 
+    /**
+     * Format a number according to the specified locale and append it to the
+     * given appendable. The default implementation appends the result of
+     * {@link #formatNumber(String, Number)}.
+     *
+     * @param appendable The appendable receiving the formatted number.
+     * @param locale     The locale identifier.
+     * @param number     The number to format.
+     * @throws IOException if the appendable cannot be written to
+     */
+    default void formatNumberTo(Appendable appendable, String locale, Number number) throws IOException {
+        appendable.append(formatNumber(locale, number));
+    }
+
     /**
      * Parse a number according to the specified locale.
      *
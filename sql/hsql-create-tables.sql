@@ -6,14 +6,17 @@
 -- file, You can obtain one at http://mozilla.org/MPL/2.0/.
 --
 
+drop table if exists SEED_I18N_CHANGE_LOG CASCADE 
 drop table if exists SEED_I18N_KEY CASCADE 
 drop table if exists SEED_I18N_KEY_TRANS CASCADE 
 drop table if exists SEED_I18N_LOCALE CASCADE 
 drop table if exists SEED_I18N_TRANSLATION CASCADE 
+create table SEED_I18N_CHANGE_LOG (ID bigint generated by default as identity (start with 1), CHANGED_AT bigint not null, CHANGE_TYPE varchar(16) not null, KEY_ID varchar(255), NODE_ID varchar(36) not null, primary key (ID))
 create table SEED_I18N_KEY (ID varchar(255) not null, DESCRIPTION varchar(255), OUTDATED boolean, primary key (ID))
 create table SEED_I18N_KEY_TRANS (Key_ID varchar(255) not null, translations_KEY_ID varchar(255) not null, translations_LOCALE varchar(255) not null, primary key (Key_ID, translations_KEY_ID, translations_LOCALE))
 create table SEED_I18N_LOCALE (CODE varchar(255) not null, DEFAULT_LOCALE boolean, ENGLISH_LANGUAGE varchar(255), LANGUAGE varchar(255), primary key (CODE))
 create table SEED_I18N_TRANSLATION (KEY_ID varchar(255) not null, LOCALE varchar(255) not null, APPROXIMATE boolean, OUTDATED boolean, TRANSLATION varchar(255), primary key (KEY_ID, LOCALE))
+create index IDX_SEED_I18N_CHANGE_LOG_DATE on SEED_I18N_CHANGE_LOG (CHANGED_AT)
 alter table SEED_I18N_KEY_TRANS add constraint UK_ta4xejyl84hjv7fx1xk3igyi2 unique (translations_KEY_ID, translations_LOCALE)
 alter table SEED_I18N_KEY_TRANS add constraint FKmu86aa2tn70mu6isua1l4prlv foreign key (translations_KEY_ID, translations_LOCALE) references SEED_I18N_TRANSLATION
 alter table SEED_I18N_KEY_TRANS add constraint FKb9x21ktjcpckc3wktrlyqed1c foreign key (Key_ID) references SEED_I18N_KEY
@@ -0,0 +1,12 @@
+--
+-- Copyright © 2013-2020, The SeedStack authors <http://seedstack.org>
+--
+-- This Source Code Form is subject to the terms of the Mozilla Public
+-- License, v. 2.0. If a copy of the MPL was not distributed with this
+-- file, You can obtain one at http://mozilla.org/MPL/2.0/.
+--
+
+-- Upgrades a schema created for a version up to 4.0.2 before enabling the change log (i18n.changeLog.enabled)
+
+create table SEED_I18N_CHANGE_LOG (ID bigint generated by default as identity (start with 1), CHANGED_AT bigint not null, CHANGE_TYPE varchar(16) not null, KEY_ID varchar(255), NODE_ID varchar(36) not null, primary key (ID))
+create index IDX_SEED_I18N_CHANGE_LOG_DATE on SEED_I18N_CHANGE_LOG (CHANGED_AT)
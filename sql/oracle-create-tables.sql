@@ -7,6 +7,15 @@
 --
 
 
+    create table SEED_I18N_CHANGE_LOG (
+       ID number(19,0) generated as identity,
+        CHANGED_AT number(19,0) not null,
+        CHANGE_TYPE varchar2(16 char) not null,
+        KEY_ID varchar2(255 char),
+        NODE_ID varchar2(36 char) not null,
+        primary key (ID)
+    );
+
     create table SEED_I18N_KEY (
        ID varchar2(255 char) not null,
         DESCRIPTION varchar2(255 char),
@@ -38,6 +47,8 @@
         primary key (KEY_ID, LOCALE)
     );
 
+    create index IDX_SEED_I18N_CHANGE_LOG_DATE on SEED_I18N_CHANGE_LOG (CHANGED_AT);
+
     alter table SEED_I18N_KEY_TRANS 
        add constraint UK_ta4xejyl84hjv7fx1xk3igyi2 unique (translations_KEY_ID, translations_LOCALE);
 
@@ -0,0 +1,20 @@
+--
+-- Copyright © 2013-2020, The SeedStack authors <http://seedstack.org>
+--
+-- This Source Code Form is subject to the terms of the Mozilla Public
+-- License, v. 2.0. If a copy of the MPL was not distributed with this
+-- file, You can obtain one at http://mozilla.org/MPL/2.0/.
+--
+
+-- Upgrades a schema created for a version up to 4.0.2 before enabling the change log (i18n.changeLog.enabled)
+
+    create table SEED_I18N_CHANGE_LOG (
+       ID number(19,0) generated as identity,
+        CHANGED_AT number(19,0) not null,
+        CHANGE_TYPE varchar2(16 char) not null,
+        KEY_ID varchar2(255 char),
+        NODE_ID varchar2(36 char) not null,
+        primary key (ID)
+    );
+
+    create index IDX_SEED_I18N_CHANGE_LOG_DATE on SEED_I18N_CHANGE_LOG (CHANGED_AT);
@@ -7,6 +7,15 @@
 --
 
 
+    create table SEED_I18N_CHANGE_LOG (
+       ID  bigserial not null,
+        CHANGED_AT int8 not null,
+        CHANGE_TYPE varchar(16) not null,
+        KEY_ID varchar(255),
+        NODE_ID varchar(36) not null,
+        primary key (ID)
+    );
+
     create table SEED_I18N_KEY (
        ID varchar(255) not null,
         DESCRIPTION varchar(255),
@@ -38,6 +47,8 @@
         primary key (KEY_ID, LOCALE)
     );
 
+    create index IDX_SEED_I18N_CHANGE_LOG_DATE on SEED_I18N_CHANGE_LOG (CHANGED_AT);
+
     alter table if exists SEED_I18N_KEY_TRANS 
        add constraint UK_ta4xejyl84hjv7fx1xk3igyi2 unique (translations_KEY_ID, translations_LOCALE);
 